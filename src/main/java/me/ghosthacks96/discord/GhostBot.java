@@ -8,7 +8,14 @@ import me.ghosthacks96.discord.configs.Config;
 import me.ghosthacks96.discord.configs.ConfigManager;
 import me.ghosthacks96.discord.events.AntiSpamListener;
 import me.ghosthacks96.discord.events.AuditLogListener;
+import me.ghosthacks96.discord.services.BlockingIoExecutor;
+import me.ghosthacks96.discord.services.GitHubApiClient;
+import me.ghosthacks96.discord.services.GitHubEventsPoller;
+import me.ghosthacks96.discord.services.GitHubNotifier;
+import me.ghosthacks96.discord.services.GitHubPackagePollingService;
 import me.ghosthacks96.discord.services.GitHubPollingService;
+import me.ghosthacks96.discord.services.GitHubWebhookServer;
+import me.ghosthacks96.discord.services.NotificationCoalescer;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
 import net.dv8tion.jda.api.entities.Guild;
@@ -18,6 +25,7 @@ import java.io.File;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import static me.ghosthacks96.discord.commands.GitHubTrackCommand.trackedRepos;
 
@@ -34,6 +42,11 @@ public class GhostBot {
 
     public static String GITHUB_TOKEN;
     public Map<String,GitHubPollingService> repoPollingServices;
+    private GitHubPackagePollingService packagePollingService;
+    // Owner -> events feed poller, used instead of repoPollingServices when github_polling_mode is "events"
+    public Map<String, GitHubEventsPoller> ownerEventPollers;
+    private String githubPollingMode;
+    private GitHubWebhookServer webhookServer;
 
     public static final Object lock = new Object();
     public static GhostBot instance;
@@ -93,7 +106,11 @@ public class GhostBot {
                         "github_token: YOUR_GITHUB_TOKEN",
                         "anti_spam_enabled: true",
                         "audit_log_enabled: true",
-                        "ticket_system_enabled: true"
+                        "ticket_system_enabled: true",
+                        "github_polling_mode: repos",
+                        "github_webhook_enabled: false",
+                        "github_webhook_port: 8085",
+                        "github_webhook_secret: \"\""
                 );
                 java.nio.file.Files.write(mainConfigFile.toPath(), defaultConfigLines);
             }
@@ -116,6 +133,27 @@ public class GhostBot {
             }
             configManager.registerFileConfig("github_repos", "configs/github_repos.yml");
 
+            // Check for configs/antispam.yml and register if missing
+            File antiSpamFile = new File("configs/antispam.yml");
+            if (!antiSpamFile.exists()) {
+                // Defaults apply to every guild, entries under guilds only override what they list
+                List<String> defaultAntiSpam = List.of(
+                        "defaults:",
+                        "  max_messages: 5",
+                        "  time_window_seconds: 10",
+                        "  mute_duration_minutes: 5",
+                        "  similar_message_threshold: 3",
+                        "  similarity_ratio: 0.8",
+                        "  raid_user_threshold: 4",
+                        "guilds:",
+                        "  '1234567890':",
+                        "    max_messages: 4",
+                        "    time_window_seconds: 5"
+                );
+                java.nio.file.Files.write(antiSpamFile.toPath(), defaultAntiSpam);
+            }
+            configManager.registerFileConfig(AntiSpamListener.CONFIG_NAME, "configs/antispam.yml");
+
 
             if(mainConfig.getString("discord_token").equals("YOUR_DISCORD_BOT_TOKEN") ||
                mainConfig.getString("github_token").equals("YOUR_GITHUB_TOKEN")) {
@@ -126,7 +164,7 @@ public class GhostBot {
 
             // Initialize components based on config
             if (mainConfig.getBoolean("anti_spam_enabled", true)) {
-                antiSpamListener = new AntiSpamListener();
+                antiSpamListener = new AntiSpamListener(configManager);
             } else {
                 antiSpamListener = null;
             }
@@ -150,9 +188,15 @@ public class GhostBot {
 
             GITHUB_TOKEN = mainConfig.getString("github_token");
 
+            // "repos" polls each repository's endpoints, "events" polls one events feed per owner
+            githubPollingMode = mainConfig.getString("github_polling_mode", "repos").toLowerCase();
+
             // Initialize repoPollingServices map before use
             if (repoPollingServices == null) {
-                repoPollingServices = new java.util.HashMap<>();
+                repoPollingServices = new java.util.concurrent.ConcurrentHashMap<>();
+            }
+            if (ownerEventPollers == null) {
+                ownerEventPollers = new java.util.concurrent.ConcurrentHashMap<>();
             }
 
             // Build JDA instance with only enabled listeners
@@ -214,6 +258,15 @@ public class GhostBot {
                 }
             }
 
+            // Resume tracking the packages saved at the last shutdown
+            if (GitHubPackagePollingService.hasSavedState()) {
+                startPackagePolling();
+            }
+
+            // Webhooks deliver pushes and comments immediately, polling keeps running as the fallback
+            if (mainConfig.getBoolean("github_webhook_enabled", false)) {
+                startWebhookServer();
+            }
 
             // Add shutdown hook for graceful shutdown
             Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
@@ -277,13 +330,30 @@ public class GhostBot {
                     break;
                 }
             }
+            String owner = repository.split("/")[0].toLowerCase();
+            GitHubEventsPoller ownerPoller = ownerEventPollers.get(owner);
+            if (ownerPoller != null && ownerPoller.hasRepository(repository)) {
+                found = true;
+            }
 
             if(!found) {
                 String name = repository.split("/")[1];
-                int pollingInterval = 5;
-                GitHubPollingService pollingService = new GitHubPollingService(jda, GITHUB_TOKEN,repository, channelId);
-                pollingService.startPolling();
-                repoPollingServices.put(repository, pollingService);
+                if ("events".equals(githubPollingMode)) {
+                    // One feed per owner covers all of its repositories
+                    // The repository is added before the first poll, otherwise it would skip past its events
+                    if (ownerPoller == null) {
+                        ownerPoller = new GitHubEventsPoller(jda, GITHUB_TOKEN, owner);
+                        ownerPoller.addRepository(repository, channelId);
+                        ownerEventPollers.put(owner, ownerPoller);
+                        ownerPoller.startPolling();
+                    } else {
+                        ownerPoller.addRepository(repository, channelId);
+                    }
+                } else {
+                    GitHubPollingService pollingService = new GitHubPollingService(jda, GITHUB_TOKEN,repository, channelId);
+                    pollingService.startPolling();
+                    repoPollingServices.put(repository, pollingService);
+                }
                 GitHubTrackCommand.TrackedRepository repo = new GitHubTrackCommand.TrackedRepository(name, jda.getGuilds().get(0).getId(), channelId);
                  // Extract repo name from "owner/repo"
                 trackedRepos.put(name, repo);
@@ -318,9 +388,117 @@ public class GhostBot {
                 }
             }
         }
+
+        for (GitHubEventsPoller poller : new java.util.ArrayList<>(ownerEventPollers.values())) {
+            if (poller.hasRepository(repository)) {
+                if (poller.removeRepository(repository)) {
+                    // Last repository of this owner, stop polling its feed
+                    poller.shutdown();
+                    ownerEventPollers.remove(poller.getOwner());
+                }
+                System.out.println("Removed repository polling for: " + repository);
+            }
+        }
 }
 
+    /**
+     * Manually check a tracked repository with whichever poller covers it
+     * @param name The repository as "owner/repo" or just "repo"
+     * @return The running check, or null if no poller covers the repository
+     */
+    public CompletableFuture<GitHubApiClient.CheckResult> manualCheckRepository(String name) {
+        for (Map.Entry<String, GitHubPollingService> entry : repoPollingServices.entrySet()) {
+            if (matchesRepository(entry.getKey(), name)) {
+                return entry.getValue().manualCheck();
+            }
+        }
+        for (GitHubEventsPoller poller : ownerEventPollers.values()) {
+            String repoFull = name.contains("/") ? name : poller.getOwner() + "/" + name;
+            if (poller.hasRepository(repoFull)) {
+                return poller.manualCheck();
+            }
+        }
+        return null;
+    }
 
+    private void startWebhookServer() {
+        String secret = mainConfig.getString("github_webhook_secret", "");
+        if (secret.isEmpty()) {
+            System.err.println("github_webhook_enabled is true but github_webhook_secret is empty, webhook receiver not started");
+            return;
+        }
+        try {
+            webhookServer = new GitHubWebhookServer(mainConfig.getInt("github_webhook_port", 8085), secret, new WebhookRouter());
+            webhookServer.start();
+        } catch (Exception e) {
+            webhookServer = null;
+            System.err.println("Failed to start GitHub webhook receiver: " + e.getMessage());
+        }
+    }
+
+    // Helper class routing webhook events to the poller of the tracked repository, untracked repositories are ignored
+    private class WebhookRouter implements GitHubWebhookServer.EventSink {
+        @Override
+        public void onCommit(String repository, GitHubNotifier.CommitInfo commit) {
+            GitHubPollingService service = pollingServiceFor(repository);
+            if (service != null) service.deliverCommit(commit);
+            GitHubEventsPoller poller = eventsPollerFor(repository);
+            if (poller != null) poller.deliverCommit(repository, commit);
+        }
+
+        @Override
+        public void onIssueComment(String repository, GitHubNotifier.CommentInfo comment) {
+            GitHubPollingService service = pollingServiceFor(repository);
+            if (service != null) service.deliverIssueComment(comment);
+            GitHubEventsPoller poller = eventsPollerFor(repository);
+            if (poller != null) poller.deliverIssueComment(repository, comment);
+        }
+
+        @Override
+        public void onPRComment(String repository, GitHubNotifier.CommentInfo comment) {
+            GitHubPollingService service = pollingServiceFor(repository);
+            if (service != null) service.deliverPRComment(comment);
+            GitHubEventsPoller poller = eventsPollerFor(repository);
+            if (poller != null) poller.deliverPRComment(repository, comment);
+        }
+
+        private GitHubPollingService pollingServiceFor(String repository) {
+            for (Map.Entry<String, GitHubPollingService> entry : repoPollingServices.entrySet()) {
+                if (entry.getKey().equalsIgnoreCase(repository)) {
+                    return entry.getValue();
+                }
+            }
+            return null;
+        }
+
+        private GitHubEventsPoller eventsPollerFor(String repository) {
+            GitHubEventsPoller poller = ownerEventPollers.get(repository.split("/")[0].toLowerCase());
+            return poller != null && poller.hasRepository(repository) ? poller : null;
+        }
+    }
+
+    private static boolean matchesRepository(String repoFull, String name) {
+        if (name.contains("/")) {
+            return repoFull.equalsIgnoreCase(name);
+        }
+        String[] parts = repoFull.split("/");
+        return parts.length == 2 && parts[1].equalsIgnoreCase(name);
+    }
+
+
+
+    /**
+     * Start the package polling service if it is not running yet. All tracked packages share the one service.
+     */
+    public synchronized void startPackagePolling() {
+        if (packagePollingService == null) {
+            packagePollingService = new GitHubPackagePollingService(jda, GITHUB_TOKEN);
+        }
+    }
+
+    public synchronized GitHubPackagePollingService getPackagePollingService() {
+        return packagePollingService;
+    }
 
     private void shutdown() {
         System.out.println("Shutting down GhostBot...");
@@ -354,6 +532,22 @@ public class GhostBot {
             antiSpamListener.shutdown();
         }
 
+        if (webhookServer != null) {
+            webhookServer.stop();
+        }
+
+        if (packagePollingService != null) {
+            packagePollingService.shutdown();
+        }
+        for (GitHubEventsPoller poller : ownerEventPollers.values()) {
+            poller.shutdown();
+        }
+        GitHubApiClient.getInstance().shutdown();
+        // Let polls and checks already running finish
+        BlockingIoExecutor.getInstance().shutdown();
+        // Send notifications still waiting in a window before JDA goes away
+        NotificationCoalescer.getInstance().shutdown();
+
         if (jda != null) {
             jda.shutdown();
         }
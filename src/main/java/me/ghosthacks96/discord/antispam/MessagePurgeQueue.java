@@ -0,0 +1,71 @@
+package me.ghosthacks96.discord.antispam;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.channel.middleman.GuildMessageChannel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects spam message IDs per channel and deletes them in bulk.
+ *
+ * Mutes and messages from muted users only enqueue IDs. Each {@link #flush(JDA)} then sends one bulk delete
+ * per channel for up to 100 messages, so cleaning up after a raid costs a handful of requests instead of one
+ * per message.
+ */
+public class MessagePurgeQueue {
+
+    private static final int MAX_BULK_DELETE = 100;
+
+    // Channel ID -> message IDs waiting to be deleted
+    private final Map<Long, Set<Long>> pending = new HashMap<>();
+
+    public synchronized void enqueue(long channelId, long messageId) {
+        pending.computeIfAbsent(channelId, k -> new HashSet<>()).add(messageId);
+    }
+
+    /**
+     * Delete everything queued so far, batching up to 100 IDs per request per channel.
+     */
+    public void flush(JDA jda) {
+        Map<Long, Set<Long>> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new HashMap<>(pending);
+            pending.clear();
+        }
+
+        for (Map.Entry<Long, Set<Long>> entry : batch.entrySet()) {
+            GuildMessageChannel channel = jda.getChannelById(GuildMessageChannel.class, entry.getKey());
+            if (channel == null) continue;
+
+            List<String> ids = new ArrayList<>(MAX_BULK_DELETE);
+            for (long messageId : entry.getValue()) {
+                ids.add(Long.toUnsignedString(messageId));
+                if (ids.size() == MAX_BULK_DELETE) {
+                    purge(channel, ids);
+                    ids = new ArrayList<>(MAX_BULK_DELETE);
+                }
+            }
+            if (!ids.isEmpty()) {
+                purge(channel, ids);
+            }
+        }
+    }
+
+    private void purge(GuildMessageChannel channel, List<String> ids) {
+        // purgeMessagesById uses the bulk delete endpoint for a chunk, falling back to single deletes
+        // only for messages too old to bulk delete
+        channel.purgeMessagesById(ids).forEach(future -> future.whenComplete((success, error) -> {
+            if (error != null) {
+                System.err.println("Failed to delete spam messages in " + channel.getName() + ": " + error.getMessage());
+            }
+        }));
+    }
+}
@@ -0,0 +1,112 @@
+package me.ghosthacks96.discord.antispam;
+
+/**
+ * Fixed-capacity ring buffer holding a single user's most recent messages.
+ * Timestamps are kept as primitive epoch millis so frequency checks never allocate,
+ * and the oldest entry is overwritten once the buffer is full, which bounds memory per tracked user.
+ */
+public class MessageWindow {
+
+    private final long[] timestamps;
+    private final String[] contents;
+    private final long[] fingerprints;
+    private final long[] channelIds;
+    private final long[] messageIds;
+
+    // Index of the next slot to write, and number of valid entries
+    private int head;
+    private int size;
+
+    public MessageWindow(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.timestamps = new long[capacity];
+        this.contents = new String[capacity];
+        this.fingerprints = new long[capacity];
+        this.channelIds = new long[capacity];
+        this.messageIds = new long[capacity];
+    }
+
+    /**
+     * Record a message, overwriting the oldest entry when the buffer is full.
+     * @param timestampMillis Epoch millis the message was received at
+     * @param content Normalized message content
+     * @param fingerprint Content fingerprint from {@link SimilarityEngine#fingerprint(String)}
+     * @param channelId The channel the message was sent in
+     * @param messageId The message's snowflake ID, kept so spam can be bulk-deleted later
+     */
+    public void add(long timestampMillis, String content, long fingerprint, long channelId, long messageId) {
+        timestamps[head] = timestampMillis;
+        contents[head] = content;
+        fingerprints[head] = fingerprint;
+        channelIds[head] = channelId;
+        messageIds[head] = messageId;
+        head = (head + 1) % timestamps.length;
+        if (size < timestamps.length) {
+            size++;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return timestamps.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Timestamp of the newest message, or {@link Long#MIN_VALUE} if the window is empty.
+     */
+    public long newestTimestamp() {
+        return size == 0 ? Long.MIN_VALUE : timestamps[slot(0)];
+    }
+
+    /**
+     * @param age 0 for the newest message, size() - 1 for the oldest
+     */
+    public long timestampAt(int age) {
+        return timestamps[slot(age)];
+    }
+
+    public String contentAt(int age) {
+        return contents[slot(age)];
+    }
+
+    public long fingerprintAt(int age) {
+        return fingerprints[slot(age)];
+    }
+
+    public long channelIdAt(int age) {
+        return channelIds[slot(age)];
+    }
+
+    public long messageIdAt(int age) {
+        return messageIds[slot(age)];
+    }
+
+    /**
+     * Count messages received strictly after the cutoff, walking from the newest entry
+     * and stopping at the first older one.
+     */
+    public int countSince(long cutoffMillis) {
+        int count = 0;
+        while (count < size && timestamps[slot(count)] > cutoffMillis) {
+            count++;
+        }
+        return count;
+    }
+
+    private int slot(int age) {
+        if (age < 0 || age >= size) {
+            throw new IndexOutOfBoundsException("Age " + age + " outside window of size " + size);
+        }
+        int index = head - 1 - age;
+        return index < 0 ? index + timestamps.length : index;
+    }
+}
@@ -0,0 +1,244 @@
+package me.ghosthacks96.discord.antispam;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hashed timing wheel tracking when each mute expires.
+ *
+ * Every pending unmute sits in a doubly linked list in the wheel slot of its deadline tick, so scheduling,
+ * rescheduling and cancelling are O(1) no matter how many users are muted at once. A single {@link #tick()}
+ * call per second advances the wheel and hands expired mutes to the expiry handler. The active mutes are
+ * snapshotted to disk by {@link #flush()} and reloaded on startup, so pending unmutes survive a restart.
+ *
+ * The wheel is guarded by the scheduler lock. {@link #isMuted(long, long)} runs for every incoming message and
+ * never takes it: it reads an immutable copy of the muted users. The copy is rebuilt whenever a mute starts or
+ * ends, which costs O(muted users) but is rare next to the message rate, and the lookup stays allocation free.
+ */
+public class MuteScheduler {
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 512; // One rotation covers ~8.5 minutes, longer mutes wait extra rounds
+
+    private final Timeout[] wheel = new Timeout[WHEEL_SIZE];
+    private final SnowflakePairMap<Timeout> timeouts = new SnowflakePairMap<>();
+    // Copy of the users with a pending unmute, replaced under the lock and never modified once published
+    private volatile SnowflakePairMap<Boolean> muted = new SnowflakePairMap<>();
+    private final ExpiryHandler expiryHandler;
+    private final File stateFile;
+
+    private long currentTick;
+    private boolean dirty;
+
+    /**
+     * @param stateFile File the active mutes are persisted to
+     * @param expiryHandler Called for each expired mute, outside the scheduler lock
+     */
+    public MuteScheduler(File stateFile, ExpiryHandler expiryHandler) {
+        this.stateFile = stateFile;
+        this.expiryHandler = expiryHandler;
+        this.currentTick = System.currentTimeMillis() / TICK_MILLIS;
+        load();
+    }
+
+    @FunctionalInterface
+    public interface ExpiryHandler {
+        void onExpire(long guildId, long userId);
+    }
+
+    /**
+     * Schedule an unmute, replacing any pending unmute for the same user.
+     * @param expiresAtMillis Epoch millis the mute ends at
+     */
+    public synchronized void schedule(long guildId, long userId, long expiresAtMillis) {
+        insert(guildId, userId, expiresAtMillis);
+        publishMuted();
+        dirty = true;
+    }
+
+    // Called with the lock held, or from the constructor
+    private void insert(long guildId, long userId, long expiresAtMillis) {
+        Timeout existing = timeouts.remove(guildId, userId);
+        if (existing != null) {
+            unlink(existing);
+        }
+
+        // Deadlines already reached fire on the next tick instead of waiting a full rotation
+        long deadlineTick = Math.max(currentTick + 1, (expiresAtMillis + TICK_MILLIS - 1) / TICK_MILLIS);
+        Timeout timeout = new Timeout(guildId, userId, expiresAtMillis, deadlineTick);
+        link(timeout);
+        timeouts.put(guildId, userId, timeout);
+    }
+
+    /**
+     * Cancel a pending unmute.
+     * @return true if the user had a pending unmute
+     */
+    public synchronized boolean cancel(long guildId, long userId) {
+        Timeout timeout = timeouts.remove(guildId, userId);
+        if (timeout == null) {
+            return false;
+        }
+        unlink(timeout);
+        publishMuted();
+        dirty = true;
+        return true;
+    }
+
+    public boolean isMuted(long guildId, long userId) {
+        return muted.containsKey(guildId, userId);
+    }
+
+    public int size() {
+        return muted.size();
+    }
+
+    /**
+     * Advance the wheel to the current time and fire every expired mute.
+     */
+    public void tick() {
+        List<Timeout> expired = new ArrayList<>();
+
+        synchronized (this) {
+            long targetTick = System.currentTimeMillis() / TICK_MILLIS;
+            // Never walk more than one rotation, every slot has been visited by then
+            long steps = Math.min(targetTick - currentTick, WHEEL_SIZE);
+            for (long step = 1; step <= steps; step++) {
+                int slot = (int) Math.floorMod(currentTick + step, (long) WHEEL_SIZE);
+                Timeout timeout = wheel[slot];
+                while (timeout != null) {
+                    Timeout next = timeout.next;
+                    if (timeout.deadlineTick <= targetTick) {
+                        unlink(timeout);
+                        timeouts.remove(timeout.guildId, timeout.userId);
+                        expired.add(timeout);
+                    }
+                    timeout = next;
+                }
+            }
+            if (targetTick > currentTick) {
+                currentTick = targetTick;
+            }
+            if (!expired.isEmpty()) {
+                publishMuted();
+                dirty = true;
+            }
+        }
+
+        for (Timeout timeout : expired) {
+            try {
+                expiryHandler.onExpire(timeout.guildId, timeout.userId);
+            } catch (Exception e) {
+                System.err.println("Failed to process mute expiry for " + timeout.guildId + ":" + timeout.userId
+                        + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Write the active mutes to disk if anything changed since the last flush.
+     */
+    public void flush() {
+        List<String> lines;
+        synchronized (this) {
+            if (!dirty) {
+                return;
+            }
+            List<String> snapshot = new ArrayList<>(timeouts.size());
+            timeouts.forEach((guildId, userId, timeout) ->
+                    snapshot.add(guildId + ":" + userId + " " + timeout.expiresAtMillis));
+            lines = snapshot;
+            dirty = false;
+        }
+
+        try {
+            File parent = stateFile.getParentFile();
+            if (parent != null && !parent.exists()) {
+                parent.mkdirs();
+            }
+            File tmp = new File(stateFile.getPath() + ".tmp");
+            Files.write(tmp.toPath(), lines, StandardCharsets.UTF_8);
+            Files.move(tmp.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            synchronized (this) {
+                dirty = true;
+            }
+            System.err.println("Failed to save mute state: " + e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!stateFile.exists()) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(stateFile.toPath(), StandardCharsets.UTF_8)) {
+                // Format: guildId:userId expiresAtMillis
+                String[] parts = line.trim().split("[: ]");
+                if (parts.length != 3) continue;
+                try {
+                    insert(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                } catch (NumberFormatException e) {
+                    System.err.println("Skipping malformed mute entry: " + line);
+                }
+            }
+            publishMuted();
+            System.out.println("Restored " + timeouts.size() + " pending unmute(s) from " + stateFile.getPath());
+        } catch (IOException e) {
+            System.err.println("Failed to load mute state: " + e.getMessage());
+        }
+    }
+
+    // Called with the lock held, or from the constructor
+    private void publishMuted() {
+        SnowflakePairMap<Boolean> copy = new SnowflakePairMap<>(timeouts.size());
+        timeouts.forEach((guildId, userId, timeout) -> copy.put(guildId, userId, Boolean.TRUE));
+        muted = copy;
+    }
+
+    private void link(Timeout timeout) {
+        int slot = (int) Math.floorMod(timeout.deadlineTick, (long) WHEEL_SIZE);
+        timeout.slot = slot;
+        timeout.next = wheel[slot];
+        if (wheel[slot] != null) {
+            wheel[slot].prev = timeout;
+        }
+        wheel[slot] = timeout;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            wheel[timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+    }
+
+    // Helper class for a pending unmute in the wheel
+    private static class Timeout {
+        final long guildId;
+        final long userId;
+        final long expiresAtMillis;
+        final long deadlineTick;
+        int slot;
+        Timeout prev;
+        Timeout next;
+
+        Timeout(long guildId, long userId, long expiresAtMillis, long deadlineTick) {
+            this.guildId = guildId;
+            this.userId = userId;
+            this.expiresAtMillis = expiresAtMillis;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package me.ghosthacks96.discord.antispam;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rolling per-guild index of MinHash signatures used to spot the same text posted by many different users.
+ *
+ * Each message is reduced to a 16-value MinHash signature over character shingles, and the signature is filed
+ * under eight band buckets of two values each. Texts with high shingle overlap collide in at least one band with
+ * high probability, so a lookup only scans the handful of buckets it lands in rather than the whole window.
+ * Entries expire after the window or once the guild reaches its entry cap, which keeps memory bounded during raids.
+ */
+public class NearDuplicateIndex {
+
+    private static final int SIGNATURE_SIZE = 16;
+    private static final int ROWS_PER_BAND = 2;
+    private static final int BANDS = SIGNATURE_SIZE / ROWS_PER_BAND;
+    private static final int MIN_MATCHING_VALUES = SIGNATURE_SIZE / 2; // Estimated shingle overlap of at least 50%
+    private static final int SHINGLE_SIZE = 4;
+    private static final int MAX_COUNTED_USERS = 64;
+
+    private final long windowMillis;
+    private final int maxEntriesPerGuild;
+    private final Map<Long, GuildIndex> guilds = new ConcurrentHashMap<>();
+
+    /**
+     * @param windowMillis How long a message stays in the index
+     * @param maxEntriesPerGuild Hard cap on indexed messages per guild, oldest are evicted first
+     */
+    public NearDuplicateIndex(long windowMillis, int maxEntriesPerGuild) {
+        this.windowMillis = windowMillis;
+        this.maxEntriesPerGuild = maxEntriesPerGuild;
+    }
+
+    /**
+     * Index a message and report how many other users posted a near-duplicate of it inside the window.
+     * @param content Normalized message content
+     * @return Number of distinct other users with a matching message, capped at 64
+     */
+    public int record(long guildId, long userId, String content, long timestampMillis) {
+        int[] signature = signature(content);
+        GuildIndex index = guilds.computeIfAbsent(guildId, k -> new GuildIndex());
+        return index.record(signature, userId, timestampMillis, timestampMillis - windowMillis, maxEntriesPerGuild);
+    }
+
+    /**
+     * Expire old entries and drop guilds with nothing left in their window.
+     */
+    public void cleanup(long nowMillis) {
+        long cutoff = nowMillis - windowMillis;
+        guilds.entrySet().removeIf(entry -> entry.getValue().expire(cutoff, maxEntriesPerGuild));
+    }
+
+    /**
+     * MinHash signature over overlapping character shingles. The fraction of equal values between two
+     * signatures estimates the Jaccard similarity of their shingle sets.
+     */
+    static int[] signature(String content) {
+        int[] signature = new int[SIGNATURE_SIZE];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+
+        int shingles = Math.max(1, content.length() - SHINGLE_SIZE + 1);
+        for (int i = 0; i < shingles; i++) {
+            long shingle = 0L;
+            int end = Math.min(content.length(), i + SHINGLE_SIZE);
+            for (int j = i; j < end; j++) {
+                shingle = (shingle << 16) | content.charAt(j);
+            }
+            for (int k = 0; k < SIGNATURE_SIZE; k++) {
+                int h = (int) (mix(shingle + (k + 1) * 0x9E3779B97F4A7C15L) >>> 32);
+                if (h < signature[k]) {
+                    signature[k] = h;
+                }
+            }
+        }
+        return signature;
+    }
+
+    static int matchingValues(int[] a, int[] b) {
+        int matches = 0;
+        for (int k = 0; k < SIGNATURE_SIZE; k++) {
+            if (a[k] == b[k]) matches++;
+        }
+        return matches;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long bucketKey(int[] signature, int band) {
+        int row = band * ROWS_PER_BAND;
+        long values = ((long) signature[row] << 32) | (signature[row + 1] & 0xFFFFFFFFL);
+        return mix(values + band);
+    }
+
+    // Helper class to store an indexed message
+    private static class Entry {
+        final int[] signature;
+        final long userId;
+        final long timestamp;
+
+        Entry(int[] signature, long userId, long timestamp) {
+            this.signature = signature;
+            this.userId = userId;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private static class GuildIndex {
+        // All entries in arrival order, plus the same entries filed per band bucket (also in arrival order)
+        private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+        private final Map<Long, ArrayDeque<Entry>> buckets = new HashMap<>();
+        private final long[] seenUsers = new long[MAX_COUNTED_USERS];
+
+        synchronized int record(int[] signature, long userId, long timestamp, long cutoff, int maxEntries) {
+            expire(cutoff, maxEntries - 1);
+
+            int distinctUsers = 0;
+            for (int band = 0; band < BANDS && distinctUsers < MAX_COUNTED_USERS; band++) {
+                ArrayDeque<Entry> bucket = buckets.get(bucketKey(signature, band));
+                if (bucket == null) continue;
+
+                Iterator<Entry> it = bucket.descendingIterator();
+                while (it.hasNext() && distinctUsers < MAX_COUNTED_USERS) {
+                    Entry other = it.next();
+                    if (other.userId == userId || contains(seenUsers, distinctUsers, other.userId)) {
+                        continue;
+                    }
+                    if (matchingValues(other.signature, signature) >= MIN_MATCHING_VALUES) {
+                        seenUsers[distinctUsers++] = other.userId;
+                    }
+                }
+            }
+
+            Entry entry = new Entry(signature, userId, timestamp);
+            entries.addLast(entry);
+            for (int band = 0; band < BANDS; band++) {
+                buckets.computeIfAbsent(bucketKey(signature, band), k -> new ArrayDeque<>()).addLast(entry);
+            }
+
+            return distinctUsers;
+        }
+
+        /**
+         * Evict entries older than the cutoff or beyond the size cap.
+         * @return true if the index is now empty
+         */
+        synchronized boolean expire(long cutoff, int maxEntries) {
+            while (!entries.isEmpty() && (entries.size() > maxEntries || entries.peekFirst().timestamp <= cutoff)) {
+                Entry oldest = entries.pollFirst();
+                // Buckets are filled in arrival order, so the oldest entry is at the head of each of its buckets
+                for (int band = 0; band < BANDS; band++) {
+                    long key = bucketKey(oldest.signature, band);
+                    ArrayDeque<Entry> bucket = buckets.get(key);
+                    if (bucket != null) {
+                        if (bucket.peekFirst() == oldest) {
+                            bucket.pollFirst();
+                        }
+                        if (bucket.isEmpty()) {
+                            buckets.remove(key);
+                        }
+                    }
+                }
+            }
+            return entries.isEmpty();
+        }
+
+        private static boolean contains(long[] values, int count, long value) {
+            for (int i = 0; i < count; i++) {
+                if (values[i] == value) return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package me.ghosthacks96.discord.antispam;
+
+/**
+ * Threshold-bounded string similarity for the anti-spam checks.
+ *
+ * Similarity is (maxLen - editDistance) / maxLen, the same measure the listener always used,
+ * but it is only ever asked "is this above the threshold?". That allows three cheap rejections before
+ * any edit-distance work: the length ratio, a 64-bit bigram fingerprint, and finally a banded
+ * Levenshtein over two reused rows that gives up as soon as the threshold can no longer be met.
+ */
+public final class SimilarityEngine {
+
+    // Two rolling rows per thread, grown on demand, so comparisons never allocate a matrix
+    private static final ThreadLocal<int[][]> ROWS = ThreadLocal.withInitial(() -> new int[2][128]);
+
+    private SimilarityEngine() {
+    }
+
+    /**
+     * Build a 64-bit fingerprint of the character bigrams in a string.
+     * Every bit set in one fingerprint but not the other stands for at least one bigram the other
+     * string lacks, and a single edit can destroy at most two bigrams, which gives a lower bound
+     * on the edit distance without touching the strings.
+     */
+    public static long fingerprint(String s) {
+        long mask = 0L;
+        for (int i = 1; i < s.length(); i++) {
+            int h = (s.charAt(i - 1) << 16) ^ s.charAt(i);
+            h *= 0x9E3779B1;
+            mask |= 1L << (h >>> 26);
+        }
+        return mask;
+    }
+
+    public static boolean isSimilar(String a, String b, double threshold) {
+        return isSimilar(a, fingerprint(a), b, fingerprint(b), threshold);
+    }
+
+    /**
+     * Check whether two strings are more similar than the threshold.
+     * @param fpA Fingerprint of a, from {@link #fingerprint(String)}
+     * @param fpB Fingerprint of b, from {@link #fingerprint(String)}
+     * @param threshold Similarity ratio that must be exceeded, between 0 and 1
+     */
+    public static boolean isSimilar(String a, long fpA, String b, long fpB, double threshold) {
+        if (a.equals(b)) return true;
+
+        int maxLen = Math.max(a.length(), b.length());
+        int minLen = Math.min(a.length(), b.length());
+
+        // Largest edit distance that could still beat the threshold (rounded up, verified exactly below)
+        int maxDistance = (int) Math.ceil((1.0 - threshold) * maxLen);
+
+        // Edit distance is at least the length difference
+        if (maxLen - minLen > maxDistance) return false;
+
+        // Edit distance is at least half the number of bigrams missing from the other string
+        int missing = Math.max(Long.bitCount(fpA & ~fpB), Long.bitCount(fpB & ~fpA));
+        if ((missing + 1) / 2 > maxDistance) return false;
+
+        int distance = boundedDistance(a, b, maxDistance);
+        if (distance > maxDistance) return false;
+
+        return (maxLen - distance) / (double) maxLen > threshold;
+    }
+
+    /**
+     * Levenshtein distance restricted to a diagonal band of width 2k+1.
+     * @return The exact distance if it is at most k, otherwise k + 1
+     */
+    static int boundedDistance(String a, String b, int k) {
+        // Strip the common prefix and suffix, they never contribute to the distance
+        int start = 0;
+        int endA = a.length();
+        int endB = b.length();
+        while (start < endA && start < endB && a.charAt(start) == b.charAt(start)) {
+            start++;
+        }
+        while (endA > start && endB > start && a.charAt(endA - 1) == b.charAt(endB - 1)) {
+            endA--;
+            endB--;
+        }
+
+        // Keep the shorter remainder as the row string
+        String s = a;
+        String t = b;
+        int sOff = start;
+        int n = endA - start;
+        int m = endB - start;
+        if (n > m) {
+            s = b;
+            t = a;
+            int tmp = n;
+            n = m;
+            m = tmp;
+        }
+
+        if (m - n > k) return k + 1;
+        if (n == 0) return m;
+
+        int big = k + 1;
+        int[][] rows = ROWS.get();
+        if (rows[0].length < m + 2) {
+            rows[0] = new int[m + 2];
+            rows[1] = new int[m + 2];
+        }
+        int[] prev = rows[0];
+        int[] cur = rows[1];
+
+        int initHi = Math.min(m, k);
+        for (int j = 0; j <= initHi; j++) {
+            prev[j] = j;
+        }
+        if (initHi < m) {
+            prev[initHi + 1] = big;
+        }
+
+        for (int i = 1; i <= n; i++) {
+            int lo = Math.max(1, i - k);
+            int hi = Math.min(m, i + k);
+            char sc = s.charAt(sOff + i - 1);
+
+            cur[lo - 1] = lo == 1 ? i : big;
+            int rowMin = cur[lo - 1];
+
+            for (int j = lo; j <= hi; j++) {
+                int cost = sc == t.charAt(sOff + j - 1) ? 0 : 1;
+                int v = Math.min(prev[j - 1] + cost, Math.min(prev[j], cur[j - 1]) + 1);
+                if (v > big) v = big;
+                cur[j] = v;
+                if (v < rowMin) rowMin = v;
+            }
+            if (hi < m) {
+                cur[hi + 1] = big;
+            }
+
+            // Every path through this row already exceeds k
+            if (rowMin > k) return big;
+
+            int[] swap = prev;
+            prev = cur;
+            cur = swap;
+        }
+
+        return Math.min(prev[m], big);
+    }
+}
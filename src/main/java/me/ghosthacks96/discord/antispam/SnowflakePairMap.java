@@ -0,0 +1,213 @@
+package me.ghosthacks96.discord.antispam;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Open-addressing hash map keyed by a pair of snowflakes, typically (guild ID, user ID).
+ *
+ * Keys are stored as two primitive long arrays, so lookups never build a String or box a Long, and each
+ * entry costs two longs plus a reference instead of a ~40 character String and a map node.
+ * Not thread-safe, callers guard it with their own lock.
+ */
+public class SnowflakePairMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] firstKeys;
+    private long[] secondKeys;
+    private Object[] values; // A null value marks an empty slot
+    private int size;
+    private int resizeAt;
+
+    public SnowflakePairMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SnowflakePairMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    @FunctionalInterface
+    public interface PairFunction<V> {
+        V apply(long first, long second);
+    }
+
+    @FunctionalInterface
+    public interface PairConsumer<V> {
+        void accept(long first, long second, V value);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long first, long second) {
+        int mask = values.length - 1;
+        int index = hash(first, second) & mask;
+        while (values[index] != null) {
+            if (firstKeys[index] == first && secondKeys[index] == second) {
+                return (V) values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    public boolean containsKey(long first, long second) {
+        return get(first, second) != null;
+    }
+
+    /**
+     * @return The previous value for the key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long first, long second, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+        int mask = values.length - 1;
+        int index = hash(first, second) & mask;
+        while (values[index] != null) {
+            if (firstKeys[index] == first && secondKeys[index] == second) {
+                V previous = (V) values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+
+        firstKeys[index] = first;
+        secondKeys[index] = second;
+        values[index] = value;
+        if (++size > resizeAt) {
+            rehash(values.length << 1);
+        }
+        return null;
+    }
+
+    public V computeIfAbsent(long first, long second, PairFunction<? extends V> factory) {
+        V value = get(first, second);
+        if (value == null) {
+            value = factory.apply(first, second);
+            put(first, second, value);
+        }
+        return value;
+    }
+
+    /**
+     * @return The removed value, or null if the key was absent
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long first, long second) {
+        int mask = values.length - 1;
+        int index = hash(first, second) & mask;
+        while (values[index] != null) {
+            if (firstKeys[index] == first && secondKeys[index] == second) {
+                V removed = (V) values[index];
+                deleteSlot(index);
+                return removed;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Remove every entry whose value matches the filter, then rebuild the table once.
+     * @return Number of entries removed
+     */
+    @SuppressWarnings("unchecked")
+    public int removeIf(Predicate<? super V> filter) {
+        int removed = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null && filter.test((V) values[i])) {
+                values[i] = null;
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            // Clearing slots breaks probe chains, reinsert the survivors
+            size -= removed;
+            rehash(values.length);
+        }
+        return removed;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(PairConsumer<? super V> action) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                action.accept(firstKeys[i], secondKeys[i], (V) values[i]);
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    // Linear-probing deletion that shifts later entries of the same cluster back, so no tombstones are needed
+    private void deleteSlot(int index) {
+        int mask = values.length - 1;
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (values[next] != null) {
+            int home = hash(firstKeys[next], secondKeys[next]) & mask;
+            // Move the entry into the gap unless its home slot lies cyclically between the gap and its position
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                firstKeys[gap] = firstKeys[next];
+                secondKeys[gap] = secondKeys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[gap] = null;
+        size--;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldFirst = firstKeys;
+        long[] oldSecond = secondKeys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        int mask = newCapacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] == null) continue;
+            int index = hash(oldFirst[i], oldSecond[i]) & mask;
+            while (values[index] != null) {
+                index = (index + 1) & mask;
+            }
+            firstKeys[index] = oldFirst[i];
+            secondKeys[index] = oldSecond[i];
+            values[index] = oldValues[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        firstKeys = new long[capacity];
+        secondKeys = new long[capacity];
+        values = new Object[capacity];
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Hash a snowflake pair with a SplitMix64 finalizer.
+     */
+    public static int hash(long first, long second) {
+        long h = first * 0x9E3779B97F4A7C15L + second;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h ^= h >>> 31;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,95 @@
+package me.ghosthacks96.discord.antispam;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable, pre-resolved anti-spam thresholds for one guild.
+ *
+ * Policies are compiled once from YAML whenever the config changes, so the per-message path only reads final
+ * fields. Every value is clamped to a sane range while compiling, a typo in the config can never disable
+ * detection or overflow the message window.
+ */
+public final class SpamPolicy {
+
+    public static final SpamPolicy DEFAULT = new SpamPolicy(5, 10, 5, 3, 0.8, 4);
+
+    public final int maxMessages; // Max messages in time window
+    public final long timeWindowMillis; // Time window
+    public final int muteDurationMinutes; // Mute duration
+    public final int similarMessageThreshold; // Similar messages threshold
+    public final double similarityRatio; // Messages above this ratio count as similar
+    public final int raidUserThreshold; // Other users posting the same text before it counts as a raid
+
+    public SpamPolicy(int maxMessages, int timeWindowSeconds, int muteDurationMinutes,
+                      int similarMessageThreshold, double similarityRatio, int raidUserThreshold) {
+        this.maxMessages = maxMessages;
+        this.timeWindowMillis = TimeUnit.SECONDS.toMillis(timeWindowSeconds);
+        this.muteDurationMinutes = muteDurationMinutes;
+        this.similarMessageThreshold = similarMessageThreshold;
+        this.similarityRatio = similarityRatio;
+        this.raidUserThreshold = raidUserThreshold;
+    }
+
+    /**
+     * Compile a policy from a YAML section, taking missing keys from the base policy.
+     * @param values Section with any of max_messages, time_window_seconds, mute_duration_minutes,
+     *               similar_message_threshold, similarity_ratio and raid_user_threshold
+     * @param base Policy supplying values the section does not set
+     * @param windowCapacity Messages remembered per user, caps the message thresholds
+     */
+    public static SpamPolicy compile(Map<?, ?> values, SpamPolicy base, int windowCapacity) {
+        if (values == null || values.isEmpty()) {
+            return base;
+        }
+        return new SpamPolicy(
+                clamp(intValue(values, "max_messages", base.maxMessages), 2, windowCapacity),
+                clamp(intValue(values, "time_window_seconds", (int) TimeUnit.MILLISECONDS.toSeconds(base.timeWindowMillis)), 1, 3600),
+                clamp(intValue(values, "mute_duration_minutes", base.muteDurationMinutes), 1, 40320),
+                clamp(intValue(values, "similar_message_threshold", base.similarMessageThreshold), 2, windowCapacity),
+                Math.max(0.0, Math.min(1.0, doubleValue(values, "similarity_ratio", base.similarityRatio))),
+                clamp(intValue(values, "raid_user_threshold", base.raidUserThreshold), 1, 64)
+        );
+    }
+
+    private static int intValue(Map<?, ?> values, String key, int fallback) {
+        Object value = values.get(key);
+        if (value instanceof Number number) {
+            return number.intValue();
+        }
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.toString().trim());
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid anti-spam value for " + key + ": " + value);
+            }
+        }
+        return fallback;
+    }
+
+    private static double doubleValue(Map<?, ?> values, String key, double fallback) {
+        Object value = values.get(key);
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (value != null) {
+            try {
+                return Double.parseDouble(value.toString().trim());
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid anti-spam value for " + key + ": " + value);
+            }
+        }
+        return fallback;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    @Override
+    public String toString() {
+        return "SpamPolicy{maxMessages=" + maxMessages + ", timeWindowMillis=" + timeWindowMillis +
+                ", muteDurationMinutes=" + muteDurationMinutes + ", similarMessageThreshold=" + similarMessageThreshold +
+                ", similarityRatio=" + similarityRatio + ", raidUserThreshold=" + raidUserThreshold + "}";
+    }
+}
@@ -0,0 +1,70 @@
+package me.ghosthacks96.discord.antispam;
+
+import me.ghosthacks96.discord.configs.Config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds the compiled anti-spam policy of every guild.
+ *
+ * The config has a "defaults" section and a "guilds" section keyed by guild ID, where each guild only lists the
+ * values it overrides. {@link #apply(Config)} compiles everything into a fresh immutable snapshot and publishes
+ * it with a single volatile write, so readers never see a half-applied reload and never take a lock.
+ */
+public class SpamPolicyRegistry {
+
+    private final int windowCapacity;
+    private volatile Snapshot snapshot;
+
+    /**
+     * @param windowCapacity Messages remembered per user, caps the message thresholds of every policy
+     */
+    public SpamPolicyRegistry(int windowCapacity) {
+        this.windowCapacity = windowCapacity;
+        this.snapshot = new Snapshot(SpamPolicy.DEFAULT, Map.of());
+    }
+
+    /**
+     * Policy for a guild, falling back to the defaults.
+     */
+    public SpamPolicy policyFor(long guildId) {
+        Snapshot current = snapshot;
+        SpamPolicy policy = current.guilds.get(guildId);
+        return policy != null ? policy : current.defaults;
+    }
+
+    /**
+     * Compile and publish the policies in a config, replacing the previous ones.
+     */
+    public void apply(Config config) {
+        SpamPolicy defaults = SpamPolicy.compile(config.getMap("defaults"), SpamPolicy.DEFAULT, windowCapacity);
+
+        // Unquoted guild IDs are parsed as numbers by YAML, so don't trust the declared String keys
+        Map<?, ?> guildSections = config.getMap("guilds");
+        Map<Long, SpamPolicy> guilds = new HashMap<>();
+        for (Map.Entry<?, ?> entry : guildSections.entrySet()) {
+            if (!(entry.getValue() instanceof Map<?, ?> overrides)) continue;
+            try {
+                long guildId = Long.parseLong(String.valueOf(entry.getKey()).trim());
+                guilds.put(guildId, SpamPolicy.compile(overrides, defaults, windowCapacity));
+            } catch (NumberFormatException e) {
+                System.err.println("Skipping anti-spam policy with invalid guild ID: " + entry.getKey());
+            }
+        }
+
+        snapshot = new Snapshot(defaults, Map.copyOf(guilds));
+        System.out.println("Loaded anti-spam policies: defaults " + defaults + ", " + guilds.size() + " guild override(s)");
+    }
+
+    // Helper class for one published set of policies
+    private static class Snapshot {
+        final SpamPolicy defaults;
+        final Map<Long, SpamPolicy> guilds;
+
+        Snapshot(SpamPolicy defaults, Map<Long, SpamPolicy> guilds) {
+            this.defaults = defaults;
+            this.guilds = guilds;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package me.ghosthacks96.discord.antispam;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Per-user message windows partitioned into lock stripes.
+ *
+ * A (guild ID, user ID) pair always hashes to the same stripe, and each stripe owns its own map and lock, so
+ * messages from different users can be recorded and checked in parallel while a single user's window is only
+ * ever touched by one thread at a time. Cleanup locks one stripe at a time and never blocks the whole store.
+ */
+public class StripedWindowStore {
+
+    private final Stripe[] stripes;
+    private final int stripeShift;
+    private final int windowCapacity;
+
+    /**
+     * @param stripeCount Number of stripes, rounded up to a power of two
+     * @param windowCapacity Capacity of each newly created {@link MessageWindow}
+     */
+    public StripedWindowStore(int stripeCount, int windowCapacity) {
+        int count = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeShift = 32 - Integer.numberOfTrailingZeros(count);
+        this.windowCapacity = windowCapacity;
+    }
+
+    /**
+     * Stripe count sized for the machine, a few stripes per core keeps contention low.
+     */
+    public static int defaultStripeCount() {
+        return Runtime.getRuntime().availableProcessors() * 4;
+    }
+
+    /**
+     * Run an action against a user's window while holding its stripe lock, creating the window if needed.
+     * The window must not escape the action.
+     */
+    public <R> R update(long guildId, long userId, Function<MessageWindow, R> action) {
+        Stripe stripe = stripeFor(guildId, userId);
+        stripe.lock.lock();
+        try {
+            MessageWindow window = stripe.windows.computeIfAbsent(guildId, userId, (g, u) -> new MessageWindow(windowCapacity));
+            return action.apply(window);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Run an action against a user's window while holding its stripe lock.
+     * @return The action's result, or null if the user has no window
+     */
+    public <R> R read(long guildId, long userId, Function<MessageWindow, R> action) {
+        Stripe stripe = stripeFor(guildId, userId);
+        stripe.lock.lock();
+        try {
+            MessageWindow window = stripe.windows.get(guildId, userId);
+            return window == null ? null : action.apply(window);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Remove every window matching the filter, locking one stripe at a time.
+     * @return Number of windows removed
+     */
+    public int removeIf(Predicate<MessageWindow> filter) {
+        int removed = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                removed += stripe.windows.removeIf(filter);
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return removed;
+    }
+
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+    private Stripe stripeFor(long guildId, long userId) {
+        if (stripes.length == 1) {
+            return stripes[0];
+        }
+        // Pick the stripe from the high bits, the map inside each stripe indexes by the low bits
+        return stripes[SnowflakePairMap.hash(guildId, userId) >>> stripeShift];
+    }
+
+    // Helper class for one partition of the store
+    private static class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final SnowflakePairMap<MessageWindow> windows = new SnowflakePairMap<>();
+    }
+}
@@ -1,10 +1,12 @@
 package me.ghosthacks96.discord.commands;
 
 import me.ghosthacks96.discord.GhostBot;
+import me.ghosthacks96.discord.services.GitHubApiClient;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import net.dv8tion.jda.api.interactions.commands.DefaultMemberPermissions;
@@ -16,6 +18,7 @@ import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
 
 import java.awt.*;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -36,7 +39,8 @@ public class GitHubTrackCommand extends ListenerAdapter {
                 .addSubcommands(
                         new SubcommandData("track", "Add a repository or package to tracking list")
                                 .addOptions(typeOption)
-                                .addOption(OptionType.STRING, "name", "Repository (owner/repo) or package name", true),
+                                .addOption(OptionType.STRING, "name", "Repository (owner/repo) or package name", true)
+                                .addOption(OptionType.STRING, "repository", "Packages only: owner/repo publishing its releases, skips the search", false),
 
                         new SubcommandData("check", "Manually check for updates")
                                 .addOptions(typeOption)
@@ -132,12 +136,20 @@ public class GitHubTrackCommand extends ListenerAdapter {
                 }
             }
             case "package" -> {
+                String repository = event.getOption("repository") != null ? event.getOption("repository").getAsString() : null;
+                if (repository != null && !isValidRepoFormat(repository)) {
+                    embed.setColor(Color.RED)
+                            .setDescription("❌ Invalid repository format. Use `owner/repository` format.\n\n" +
+                                    "**Example:** `facebook/react`");
+                    break;
+                }
                 TrackedPackage pkg = new TrackedPackage(name, event.getGuild().getId(),
-                        event.getChannel().getId());
+                        event.getChannel().getId(), repository);
                 trackedPackages.put(name.toLowerCase(), pkg);
 
                 // Start package polling for this package
                 GhostBot.getInstance().startPackagePolling();
+                GhostBot.getInstance().getPackagePollingService().markStateChanged();
 
                 embed.setDescription("✅ Successfully added package `" + name + "` to tracking list!")
                         .addField("📦 Package", name, true)
@@ -145,7 +157,9 @@ public class GitHubTrackCommand extends ListenerAdapter {
                                 .format(DateTimeFormatter.ofPattern("MMM dd, yyyy 'at' HH:mm")), true)
                         .addField("🔔 Notifications", "This channel will receive updates", false)
                         .addField("📊 Tracking", "• New package releases\n• Version updates\n• Release notes", false)
-                        .addField("🔍 Search Method", "Automatically finds the most popular GitHub repository for this package", false);
+                        .addField("🔍 Search Method", repository != null
+                                ? "Pinned to [" + repository + "](https://github.com/" + repository + ")"
+                                : "Automatically finds the most popular GitHub repository for this package", false);
             }
             default -> {
                 embed.setColor(Color.RED)
@@ -174,20 +188,16 @@ public class GitHubTrackCommand extends ListenerAdapter {
                             .addField("📦 Repository", name, true)
                             .addField("⏰ Status", "Checking for new releases, commits, and issues...", false);
 
-                    // Find the repo in GhostBot's polling services and trigger manual check
-                    GhostBot bot = GhostBot.getInstance();
-                    boolean found = false;
-                    for (String repoFull : bot.repoPollingServices.keySet()) {
-                        String[] parts = repoFull.split("/");
-                        if (parts.length == 2 && parts[1].equalsIgnoreCase(name)) {
-                            bot.repoPollingServices.get(repoFull).manualCheck();
-                            found = true;
-                            break;
-                        }
-                    }
-                    if (!found) {
+                    // The check polls GitHub on a virtual thread, the reply is updated with its result
+                    CompletableFuture<GitHubApiClient.CheckResult> check = GhostBot.getInstance().manualCheckRepository(name);
+                    if (check == null) {
                         embed.setColor(Color.RED)
                                 .setDescription("❌ Repository `" + name + "` is not being polled (service not found).\nTry re-adding it or restarting the bot.");
+                    } else {
+                        event.getHook().editOriginalEmbeds(embed.build()).queue();
+                        check.thenAccept(result -> event.getHook()
+                                .editOriginalEmbeds(buildCheckResultEmbed(embed, name, result)).queue());
+                        return;
                     }
                 } else {
                     embed.setColor(Color.RED)
@@ -226,6 +236,25 @@ public class GitHubTrackCommand extends ListenerAdapter {
         event.getHook().editOriginalEmbeds(embed.build()).queue();
     }
 
+    private MessageEmbed buildCheckResultEmbed(EmbedBuilder embed, String name, GitHubApiClient.CheckResult result) {
+        embed.clearFields()
+                .addField("📦 Repository", name, true)
+                .addField("⏱️ Took", result.latencyMillis() + " ms", true)
+                .addField("📊 Rate Limit", result.rateLimitRemaining() >= 0
+                        ? result.rateLimitRemaining() + " requests left" : "Unknown", true);
+        if (result.succeeded()) {
+            embed.setDescription(result.newEvents() == 0
+                            ? "✅ Repository `" + name + "` is up to date, nothing new was found."
+                            : "✅ Found " + result.newEvents() + " new commits and comments in `" + name + "`, they have been posted to the tracking channel.")
+                    .setColor(Color.GREEN);
+        } else {
+            embed.setDescription("❌ Checking repository `" + name + "` failed.")
+                    .setColor(Color.RED)
+                    .addField("⚠️ Error", result.error(), false);
+        }
+        return embed.build();
+    }
+
     private void handleListCommand(SlashCommandInteractionEvent event) {
         EmbedBuilder embed = new EmbedBuilder()
                 .setTitle("📋 Tracked Items")
@@ -301,6 +330,9 @@ public class GitHubTrackCommand extends ListenerAdapter {
             case "package" -> {
                 removed = trackedPackages.remove(name.toLowerCase()) != null;
                 if (removed) {
+                    if (GhostBot.getInstance().getPackagePollingService() != null) {
+                        GhostBot.getInstance().getPackagePollingService().markStateChanged();
+                    }
                     embed.setColor(Color.GREEN)
                             .setDescription("✅ Successfully removed package `" + name + "` from tracking list.")
                             .addField("ℹ️ Note", "Package polling will continue for other tracked packages", false);
@@ -328,7 +360,7 @@ public class GitHubTrackCommand extends ListenerAdapter {
                 .setTimestamp(java.time.OffsetDateTime.now())
                 .addField("📦 Tracking Commands",
                         "`/github track repo <owner/repo>` - Track a GitHub repository\n" +
-                                "`/github track package <name>` - Track a package for releases\n" +
+                                "`/github track package <name> [repository]` - Track a package for releases\n" +
                                 "`/github untrack repo <owner/repo>` - Stop tracking a repository\n" +
                                 "`/github untrack package <name>` - Stop tracking a package", false)
                 .addField("🔍 Management Commands",
@@ -353,7 +385,8 @@ public class GitHubTrackCommand extends ListenerAdapter {
                         "• Repository names must be in `owner/repository` format\n" +
                                 "• Package names should match the actual package name (e.g., 'react', 'express')\n" +
                                 "• All notifications will be sent to the channel where tracking was enabled\n" +
-                                "• Package tracking searches GitHub for the most starred repository matching the name", false);
+                                "• Package tracking searches GitHub for the most starred repository matching the name, " +
+                                "pass `repository` to pin it instead", false);
 
         event.getHook().editOriginalEmbeds(embed.build()).queue();
     }
@@ -379,14 +412,20 @@ public class GitHubTrackCommand extends ListenerAdapter {
 
     public static class TrackedPackage {
         public final String name;
-        final String guildId;
+        public final String guildId;
         public final String channelId;
+        public final String repository; // Pinned "owner/repo", null to resolve by search
         final long addedTimestamp;
 
         public TrackedPackage(String name, String guildId, String channelId) {
+            this(name, guildId, channelId, null);
+        }
+
+        public TrackedPackage(String name, String guildId, String channelId, String repository) {
             this.name = name;
             this.guildId = guildId;
             this.channelId = channelId;
+            this.repository = repository;
             this.addedTimestamp = System.currentTimeMillis();
         }
     }
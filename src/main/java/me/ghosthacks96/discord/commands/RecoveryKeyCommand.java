@@ -3,6 +3,7 @@ package me.ghosthacks96.discord.commands;
 import me.ghosthacks96.discord.GhostBot;
 import me.ghosthacks96.discord.configs.Config;
 import me.ghosthacks96.discord.configs.ConfigManager;
+import me.ghosthacks96.discord.services.BlockingIoExecutor;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
@@ -69,6 +70,12 @@ public class RecoveryKeyCommand extends ListenerAdapter {
         // Generate UUID for the recovery key
         String recoveryUuid = UUID.randomUUID().toString();
 
+        // The API call blocks for up to 30 seconds, keep it off the JDA event thread
+        BlockingIoExecutor.getInstance().execute("recovery key request",
+                () -> handleRecoveryRequest(event, email, recoveryUuid));
+    }
+
+    private void handleRecoveryRequest(SlashCommandInteractionEvent event, String email, String recoveryUuid) {
         try {
             // Create request to your API
             boolean success = requestRecoveryKey(email, recoveryUuid, event.getUser().getId());
@@ -349,6 +349,23 @@ public class ConfigManager {
         }
     }
 
+    /**
+     * Reload a configuration only if its source changed since it was last loaded
+     * @return true if the configuration was reloaded
+     */
+    public boolean reloadIfChanged(String name) {
+        ConfigSource source = configSources.get(name);
+        if (source == null) {
+            throw new ConfigManagerException("Config source not found: " + name);
+        }
+        if (!source.hasChanged()) {
+            return false;
+        }
+        LOGGER.info("Detected changes in config: " + name);
+        reloadConfig(name);
+        return true;
+    }
+
     /**
      * Reload all configurations
      */
@@ -1,16 +1,39 @@
 package me.ghosthacks96.discord.events;
 
+import me.ghosthacks96.discord.antispam.MessagePurgeQueue;
+import me.ghosthacks96.discord.antispam.MessageWindow;
+import me.ghosthacks96.discord.antispam.MuteScheduler;
+import me.ghosthacks96.discord.antispam.NearDuplicateIndex;
+import me.ghosthacks96.discord.antispam.SimilarityEngine;
+import me.ghosthacks96.discord.antispam.SpamPolicy;
+import me.ghosthacks96.discord.antispam.SpamPolicyRegistry;
+import me.ghosthacks96.discord.antispam.StripedWindowStore;
+import me.ghosthacks96.discord.configs.ConfigManager;
+import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.UserSnowflake;
+import net.dv8tion.jda.api.entities.channel.Channel;
+import net.dv8tion.jda.api.entities.channel.concrete.Category;
 import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.events.channel.ChannelCreateEvent;
+import net.dv8tion.jda.api.events.channel.ChannelDeleteEvent;
+import net.dv8tion.jda.api.events.channel.update.ChannelUpdateNameEvent;
+import net.dv8tion.jda.api.events.channel.update.ChannelUpdateParentEvent;
+import net.dv8tion.jda.api.events.guild.GuildJoinEvent;
+import net.dv8tion.jda.api.events.guild.GuildReadyEvent;
+import net.dv8tion.jda.api.events.guild.override.GenericPermissionOverrideEvent;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.events.role.RoleDeleteEvent;
+import net.dv8tion.jda.api.events.role.update.RoleUpdatePermissionsEvent;
+import net.dv8tion.jda.api.events.session.ReadyEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 
-import java.time.Duration;
-import java.time.Instant;
+import java.io.File;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -18,27 +41,154 @@ import java.util.concurrent.TimeUnit;
 
 public class AntiSpamListener extends ListenerAdapter {
 
-    // Configuration
-    private static final int MAX_MESSAGES = 5; // Max messages in time window
-    private static final int TIME_WINDOW_SECONDS = 10; // Time window in seconds
-    private static final int MUTE_DURATION_MINUTES = 5; // Mute duration
-    private static final int SIMILAR_MESSAGE_THRESHOLD = 3; // Similar messages threshold
-
-    // Storage for user message tracking
-    private final Map<String, List<MessageData>> userMessages = new ConcurrentHashMap<>();
-    private final Map<String, Instant> mutedUsers = new ConcurrentHashMap<>();
+    // Configuration, thresholds are per guild and live in configs/antispam.yml
+    public static final String CONFIG_NAME = "antispam";
+    private static final String MUTED_ROLE_NAME = "Muted";
+    private static final EnumSet<Permission> MUTED_DENIED_PERMISSIONS =
+            EnumSet.of(Permission.MESSAGE_SEND, Permission.MESSAGE_ADD_REACTION);
+    private static final int WINDOW_CAPACITY = 16; // Messages remembered per user, caps every policy's max_messages
+    private static final int RAID_WINDOW_SECONDS = 30; // How long messages stay in the raid index
+    private static final int RAID_MIN_CONTENT_LENGTH = 20; // Shorter messages ("hi", "lol") are never raid candidates
+    private static final int RAID_MAX_ENTRIES_PER_GUILD = 4096; // Memory cap for the raid index of a single guild
+    private static final int PURGE_WINDOW_SECONDS = 30; // Messages this recent are deleted when their author is muted
+
+    // Storage for user message tracking, keyed by (guild ID, user ID) and lock-striped so checks can run in parallel
+    private final StripedWindowStore userMessages =
+            new StripedWindowStore(StripedWindowStore.defaultStripeCount(), WINDOW_CAPACITY);
+    private final SpamPolicyRegistry policies = new SpamPolicyRegistry(WINDOW_CAPACITY);
+    private final MessagePurgeQueue purgeQueue = new MessagePurgeQueue();
+    private final MuteScheduler muteScheduler = new MuteScheduler(new File("data/antispam/mutes.txt"), this::unmuteUser);
+    private final NearDuplicateIndex raidIndex = new NearDuplicateIndex(
+            TimeUnit.SECONDS.toMillis(RAID_WINDOW_SECONDS), RAID_MAX_ENTRIES_PER_GUILD);
+    // Channel ID -> whether anti-spam ignores it, invalidated by channel and permission update events
+    private final Map<Long, Boolean> channelPrivacy = new ConcurrentHashMap<>();
+    // Guild ID -> resolved muted role ID, and in-flight role creations so a raid never creates it twice
+    private final Map<Long, Long> mutedRoleIds = new ConcurrentHashMap<>();
+    private final Map<Long, CompletableFuture<Role>> pendingMutedRoles = new ConcurrentHashMap<>();
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+    private volatile JDA jda;
+
+    // Clean up old data every 30 seconds, advance the mute wheel every second, bulk delete spam every
+    // 2 seconds, persist mutes every 5 seconds and pick up policy edits every 15 seconds
+    public AntiSpamListener(ConfigManager configManager) {
+        policies.apply(configManager.getConfig(CONFIG_NAME));
+        configManager.addChangeListener(CONFIG_NAME, policies::apply);
 
-    // Clean up old data every 30 seconds
-    public AntiSpamListener() {
         scheduler.scheduleAtFixedRate(this::cleanupOldData, 30, 30, TimeUnit.SECONDS);
+        scheduler.scheduleAtFixedRate(muteScheduler::tick, 1, 1, TimeUnit.SECONDS);
+        scheduler.scheduleAtFixedRate(this::flushPurgeQueue, 2, 2, TimeUnit.SECONDS);
+        scheduler.scheduleAtFixedRate(muteScheduler::flush, 5, 5, TimeUnit.SECONDS);
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                configManager.reloadIfChanged(CONFIG_NAME);
+            } catch (Exception e) {
+                System.err.println("Failed to reload anti-spam policies: " + e.getMessage());
+            }
+        }, 15, 15, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void onReady(ReadyEvent event) {
+        jda = event.getJDA();
+    }
+
+    // =================== MUTED ROLE PROVISIONING ===================
+
+    @Override
+    public void onGuildReady(GuildReadyEvent event) {
+        provisionMutedRole(event.getGuild());
+    }
+
+    @Override
+    public void onGuildJoin(GuildJoinEvent event) {
+        provisionMutedRole(event.getGuild());
+    }
+
+    @Override
+    public void onChannelCreate(ChannelCreateEvent event) {
+        // Keep new channels closed to muted users without touching the existing ones
+        if (!event.isFromGuild() || !(event.getChannel() instanceof TextChannel channel)) return;
+
+        Long roleId = mutedRoleIds.get(event.getGuild().getIdLong());
+        Role mutedRole = roleId != null ? event.getGuild().getRoleById(roleId) : null;
+        if (mutedRole != null) {
+            channel.getManager().putPermissionOverride(mutedRole, null, MUTED_DENIED_PERMISSIONS).queue(
+                    null,
+                    error -> System.err.println("Failed to add muted override to " + channel.getName() + ": " + error.getMessage())
+            );
+        }
+    }
+
+    @Override
+    public void onRoleDelete(RoleDeleteEvent event) {
+        // Forget the cached role so the next mute provisions a new one
+        mutedRoleIds.remove(event.getGuild().getIdLong(), event.getRole().getIdLong());
     }
 
     /**
-     * Check if channel should be considered "private" and ignored by anti-spam
-     * You can customize this logic based on your server setup
+     * Resolve the guild's muted role from the cache, provisioning it asynchronously if needed.
+     * Never blocks the calling (gateway) thread.
+     */
+    private CompletableFuture<Role> resolveMutedRole(Guild guild) {
+        Long roleId = mutedRoleIds.get(guild.getIdLong());
+        if (roleId != null) {
+            Role role = guild.getRoleById(roleId);
+            if (role != null) {
+                return CompletableFuture.completedFuture(role);
+            }
+            mutedRoleIds.remove(guild.getIdLong(), roleId);
+        }
+        return provisionMutedRole(guild);
+    }
+
+    private CompletableFuture<Role> provisionMutedRole(Guild guild) {
+        // Try to find existing muted role
+        List<Role> mutedRoles = guild.getRolesByName(MUTED_ROLE_NAME, true);
+        if (!mutedRoles.isEmpty()) {
+            Role mutedRole = mutedRoles.get(0);
+            mutedRoleIds.put(guild.getIdLong(), mutedRole.getIdLong());
+            return CompletableFuture.completedFuture(mutedRole);
+        }
+
+        // Create muted role if it doesn't exist, sharing one creation between concurrent callers
+        return pendingMutedRoles.computeIfAbsent(guild.getIdLong(), guildId -> guild.createRole()
+                .setName(MUTED_ROLE_NAME)
+                .setColor(0x818386)
+                .setPermissions(Permission.MESSAGE_HISTORY)
+                .submit()
+                .thenApply(mutedRole -> {
+                    mutedRoleIds.put(guildId, mutedRole.getIdLong());
+
+                    // Set permissions for all text channels
+                    guild.getTextChannels().forEach(channel -> {
+                        channel.getManager().putPermissionOverride(mutedRole, null, MUTED_DENIED_PERMISSIONS)
+                                .queue();
+                    });
+
+                    System.out.println("Created muted role in guild: " + guild.getName());
+                    return mutedRole;
+                })
+                .whenComplete((role, error) -> {
+                    pendingMutedRoles.remove(guildId);
+                    if (error != null) {
+                        System.err.println("Failed to create muted role: " + error.getMessage());
+                    }
+                }));
+    }
+
+    /**
+     * Check if channel should be considered "private" and ignored by anti-spam.
+     * The classification is cached per channel until a channel, category or permission update invalidates it.
      */
     private boolean isPrivateChannel(TextChannel channel) {
+        return channelPrivacy.computeIfAbsent(channel.getIdLong(), id -> classifyChannel(channel));
+    }
+
+    /**
+     * Classify a channel as private based on its name, category and @everyone permissions
+     * You can customize this logic based on your server setup
+     */
+    private boolean classifyChannel(TextChannel channel) {
         String channelName = channel.getName().toLowerCase();
 
         // Check channel name for private indicators
@@ -69,6 +219,45 @@ public class AntiSpamListener extends ListenerAdapter {
                 .contains(Permission.VIEW_CHANNEL);
     }
 
+    // =================== CHANNEL PRIVACY CACHE INVALIDATION ===================
+
+    @Override
+    public void onChannelUpdateName(ChannelUpdateNameEvent event) {
+        invalidateChannelPrivacy(event.getChannel());
+    }
+
+    @Override
+    public void onChannelUpdateParent(ChannelUpdateParentEvent event) {
+        invalidateChannelPrivacy(event.getChannel());
+    }
+
+    @Override
+    public void onChannelDelete(ChannelDeleteEvent event) {
+        invalidateChannelPrivacy(event.getChannel());
+    }
+
+    @Override
+    public void onGenericPermissionOverride(GenericPermissionOverrideEvent event) {
+        invalidateChannelPrivacy(event.getChannel());
+    }
+
+    @Override
+    public void onRoleUpdatePermissions(RoleUpdatePermissionsEvent event) {
+        // Only @everyone feeds into the classification
+        if (event.getRole().isPublicRole()) {
+            event.getGuild().getTextChannels().forEach(this::invalidateChannelPrivacy);
+        }
+    }
+
+    private void invalidateChannelPrivacy(Channel channel) {
+        channelPrivacy.remove(channel.getIdLong());
+
+        // Category names and overrides apply to every channel inside it
+        if (channel instanceof Category category) {
+            category.getChannels().forEach(child -> channelPrivacy.remove(child.getIdLong()));
+        }
+    }
+
     @Override
     public void onMessageReceived(MessageReceivedEvent event) {
         // Ignore bots and DMs
@@ -96,230 +285,188 @@ public class AntiSpamListener extends ListenerAdapter {
             return;
         }
 
-        String userId = event.getAuthor().getId();
-        String guildId = event.getGuild().getId();
-        String userKey = guildId + ":" + userId;
+        long userId = event.getAuthor().getIdLong();
+        long guildId = event.getGuild().getIdLong();
 
         // Check if user is currently muted
-        if (mutedUsers.containsKey(userKey)) {
-            // Delete message from muted user
-            event.getMessage().delete().queue();
+        if (muteScheduler.isMuted(guildId, userId)) {
+            // Queue message from muted user for the next bulk delete
+            purgeQueue.enqueue(event.getChannel().getIdLong(), event.getMessageIdLong());
             return;
         }
 
-        // Add message to tracking
-        MessageData msgData = new MessageData(
-                event.getMessage().getContentRaw(),
-                Instant.now(),
-                event.getChannel().getId()
-        );
-
-        userMessages.computeIfAbsent(userKey, k -> new ArrayList<>()).add(msgData);
+        SpamPolicy policy = policies.policyFor(guildId);
+        long now = System.currentTimeMillis();
+        String normalized = content.toLowerCase().trim();
+        long fingerprint = SimilarityEngine.fingerprint(normalized);
+
+        // Add message to tracking and check for spam
+        long channelId = event.getChannel().getIdLong();
+        long messageId = event.getMessageIdLong();
+        boolean spamming = userMessages.update(guildId, userId, window -> {
+            window.add(now, normalized, fingerprint, channelId, messageId);
+            return isSpamming(window, policy, now);
+        });
 
-        // Check for spam
-        if (isSpamming(userKey)) {
-            muteUser(event, member);
+        // Also check for the same text being posted by many accounts at once
+        boolean raid = isRaidMessage(guildId, userId, normalized, now, policy);
+        if (raid || spamming) {
+            muteUser(event, member, policy);
         }
     }
 
-    private boolean isSpamming(String userKey) {
-        List<MessageData> messages = userMessages.get(userKey);
-        if (messages == null || messages.size() < MAX_MESSAGES) {
+    private boolean isRaidMessage(long guildId, long userId, String normalized, long now, SpamPolicy policy) {
+        if (normalized.length() < RAID_MIN_CONTENT_LENGTH) {
             return false;
         }
+        return raidIndex.record(guildId, userId, normalized, now) >= policy.raidUserThreshold;
+    }
 
-        Instant now = Instant.now();
-        Instant windowStart = now.minus(Duration.ofSeconds(TIME_WINDOW_SECONDS));
+    private boolean isSpamming(MessageWindow window, SpamPolicy policy, long now) {
+        if (window.size() < policy.maxMessages) {
+            return false;
+        }
 
-        // Count recent messages
-        long recentMessages = messages.stream()
-                .filter(msg -> msg.timestamp.isAfter(windowStart))
-                .count();
+        long windowStart = now - policy.timeWindowMillis;
 
-        // Check message frequency spam
-        if (recentMessages >= MAX_MESSAGES) {
+        // Check message frequency spam: the maxMessages-th newest message is still inside the window
+        if (window.timestampAt(policy.maxMessages - 1) > windowStart) {
             return true;
         }
 
         // Check for similar message spam
-        List<String> recentContent = messages.stream()
-                .filter(msg -> msg.timestamp.isAfter(windowStart))
-                .map(msg -> msg.content.toLowerCase().trim())
-                .filter(content -> !content.isEmpty())
-                .toList();
-
-        if (recentContent.size() >= SIMILAR_MESSAGE_THRESHOLD) {
-            // Check if messages are too similar
-            String firstMsg = recentContent.get(0);
-            long similarCount = recentContent.stream()
-                    .filter(content -> calculateSimilarity(firstMsg, content) > 0.8)
-                    .count();
-
-            return similarCount >= SIMILAR_MESSAGE_THRESHOLD;
+        int recent = window.countSince(windowStart);
+        if (recent < policy.similarMessageThreshold) {
+            return false;
         }
 
-        return false;
-    }
+        // Compare every recent message against the oldest non-empty one in the window
+        String firstMsg = null;
+        long firstFingerprint = 0L;
+        int nonEmpty = 0;
+        for (int age = recent - 1; age >= 0; age--) {
+            String content = window.contentAt(age);
+            if (content.isEmpty()) continue;
+            nonEmpty++;
+            if (firstMsg == null) {
+                firstMsg = content;
+                firstFingerprint = window.fingerprintAt(age);
+            }
+        }
 
-    private void muteUser(MessageReceivedEvent event, Member member) {
-        Guild guild = event.getGuild();
-        String userId = member.getId();
-        String guildId = guild.getId();
-        String userKey = guildId + ":" + userId;
+        if (nonEmpty < policy.similarMessageThreshold) {
+            return false;
+        }
 
-        // Find or create muted role
-        Role mutedRole = findOrCreateMutedRole(guild);
-        if (mutedRole == null) {
-            return;
+        int similarCount = 0;
+        for (int age = recent - 1; age >= 0; age--) {
+            String content = window.contentAt(age);
+            if (!content.isEmpty() && SimilarityEngine.isSimilar(firstMsg, firstFingerprint,
+                    content, window.fingerprintAt(age), policy.similarityRatio)) {
+                similarCount++;
+            }
         }
 
-        // Add muted role
-        guild.addRoleToMember(member, mutedRole).queue(
+        return similarCount >= policy.similarMessageThreshold;
+    }
+
+    private void muteUser(MessageReceivedEvent event, Member member, SpamPolicy policy) {
+        Guild guild = event.getGuild();
+        long guildId = guild.getIdLong();
+        long userId = member.getIdLong();
+
+        // Find or create muted role, then add it
+        resolveMutedRole(guild).thenAccept(mutedRole -> guild.addRoleToMember(member, mutedRole).queue(
                 success -> {
-                    // Mark user as muted
-                    mutedUsers.put(userKey, Instant.now().plus(Duration.ofMinutes(MUTE_DURATION_MINUTES)));
+                    // Mark user as muted and schedule the unmute, replacing any earlier pending unmute
+                    muteScheduler.schedule(guildId, userId,
+                            System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(policy.muteDurationMinutes));
 
                     // Delete recent spam messages
-                    deleteRecentMessages(event, userKey);
+                    purgeRecentMessages(guildId, userId);
 
                     // Send notification
                     event.getChannel().sendMessage(
                             "🔇 " + member.getAsMention() + " has been muted for " +
-                                    MUTE_DURATION_MINUTES + " minutes due to spamming."
+                                    policy.muteDurationMinutes + " minutes due to spamming."
                     ).queue();
-
-                    // Schedule unmute
-                    scheduler.schedule(() -> unmuteUser(guild, member, mutedRole),
-                            MUTE_DURATION_MINUTES, TimeUnit.MINUTES);
                 },
                 error -> {
                     System.err.println("Failed to mute user: " + error.getMessage());
                 }
-        );
+        ));
     }
 
-    private Role findOrCreateMutedRole(Guild guild) {
-        // Try to find existing muted role
-        List<Role> mutedRoles = guild.getRolesByName("Muted", true);
-        if (!mutedRoles.isEmpty()) {
-            return mutedRoles.get(0);
-        }
+    private void purgeRecentMessages(long guildId, long userId) {
+        long cutoff = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(PURGE_WINDOW_SECONDS);
+
+        userMessages.read(guildId, userId, window -> {
+            // Queue every tracked message inside the purge window, they are bulk deleted per channel
+            int recent = window.countSince(cutoff);
+            for (int age = 0; age < recent; age++) {
+                purgeQueue.enqueue(window.channelIdAt(age), window.messageIdAt(age));
+            }
+            return recent;
+        });
+    }
+
+    private void flushPurgeQueue() {
+        JDA jda = this.jda;
+        if (jda == null) return;
 
-        // Create muted role if it doesn't exist
         try {
-            Role mutedRole = guild.createRole()
-                    .setName("Muted")
-                    .setColor(0x818386)
-                    .setPermissions(Permission.MESSAGE_HISTORY)
-                    .complete();
-
-            // Set permissions for all text channels
-            guild.getTextChannels().forEach(channel -> {
-                channel.getManager().putPermissionOverride(mutedRole, null,
-                                EnumSet.of(Permission.MESSAGE_SEND, Permission.MESSAGE_ADD_REACTION))
-                        .queue();
-            });
-
-            return mutedRole;
+            purgeQueue.flush(jda);
         } catch (Exception e) {
-            System.err.println("Failed to create muted role: " + e.getMessage());
-            return null;
+            System.err.println("Failed to flush spam purge queue: " + e.getMessage());
         }
     }
 
-    private void deleteRecentMessages(MessageReceivedEvent event, String userKey) {
-        List<MessageData> messages = userMessages.get(userKey);
-        if (messages == null) return;
-
-        Instant cutoff = Instant.now().minus(Duration.ofSeconds(TIME_WINDOW_SECONDS));
-
-        // Delete the current message
-        event.getMessage().delete().queue();
+    private void unmuteUser(long guildId, long userId) {
+        JDA jda = this.jda;
+        if (jda == null) {
+            // Mutes restored from disk can expire before the bot is ready, try again shortly
+            muteScheduler.schedule(guildId, userId, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5));
+            return;
+        }
 
-        // Note: Bulk deletion of old messages requires message history retrieval
-        // This is a simplified version - you might want to implement message ID tracking
-        // for more sophisticated message deletion
-    }
+        Guild guild = jda.getGuildById(guildId);
+        if (guild == null) return;
 
-    private void unmuteUser(Guild guild, Member member, Role mutedRole) {
-        String userKey = guild.getId() + ":" + member.getId();
+        Long roleId = mutedRoleIds.get(guildId);
+        Role mutedRole = roleId != null ? guild.getRoleById(roleId) : null;
+        if (mutedRole == null) {
+            List<Role> mutedRoles = guild.getRolesByName(MUTED_ROLE_NAME, true);
+            if (mutedRoles.isEmpty()) return;
+            mutedRole = mutedRoles.get(0);
+        }
 
-        guild.removeRoleFromMember(member, mutedRole).queue(
+        guild.removeRoleFromMember(UserSnowflake.fromId(userId), mutedRole).queue(
                 success -> {
-                    mutedUsers.remove(userKey);
-
                     // Try to send DM to user
-                    member.getUser().openPrivateChannel().queue(channel -> {
+                    jda.openPrivateChannelById(userId).queue(channel -> {
                         channel.sendMessage("You have been unmuted in " + guild.getName() +
                                 ". Please follow the server rules to avoid future mutes.").queue();
                     });
                 },
                 error -> {
                     System.err.println("Failed to unmute user: " + error.getMessage());
-                    mutedUsers.remove(userKey); // Remove from tracking anyway
                 }
         );
     }
 
-    private double calculateSimilarity(String s1, String s2) {
-        if (s1.equals(s2)) return 1.0;
-
-        int maxLen = Math.max(s1.length(), s2.length());
-        if (maxLen == 0) return 1.0;
-
-        return (maxLen - levenshteinDistance(s1, s2)) / (double) maxLen;
-    }
-
-    private int levenshteinDistance(String s1, String s2) {
-        int[][] dp = new int[s1.length() + 1][s2.length() + 1];
-
-        for (int i = 0; i <= s1.length(); i++) {
-            for (int j = 0; j <= s2.length(); j++) {
-                if (i == 0) {
-                    dp[i][j] = j;
-                } else if (j == 0) {
-                    dp[i][j] = i;
-                } else {
-                    dp[i][j] = Math.min(Math.min(
-                                    dp[i - 1][j] + 1,
-                                    dp[i][j - 1] + 1),
-                            dp[i - 1][j - 1] + (s1.charAt(i - 1) == s2.charAt(j - 1) ? 0 : 1)
-                    );
-                }
-            }
-        }
-
-        return dp[s1.length()][s2.length()];
-    }
-
     private void cleanupOldData() {
-        Instant cutoff = Instant.now().minus(Duration.ofMinutes(10));
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(10);
 
-        // Clean up old message data
-        userMessages.entrySet().removeIf(entry -> {
-            entry.getValue().removeIf(msg -> msg.timestamp.isBefore(cutoff));
-            return entry.getValue().isEmpty();
-        });
+        // Drop windows whose newest message is older than the cutoff
+        userMessages.removeIf(window -> window.newestTimestamp() < cutoff);
 
-        // Clean up expired mutes
-        mutedUsers.entrySet().removeIf(entry -> entry.getValue().isBefore(Instant.now()));
-    }
-
-    // Helper class to store message data
-    private static class MessageData {
-        final String content;
-        final Instant timestamp;
-        final String channelId;
-
-        MessageData(String content, Instant timestamp, String channelId) {
-            this.content = content;
-            this.timestamp = timestamp;
-            this.channelId = channelId;
-        }
+        // Expire the raid index
+        raidIndex.cleanup(System.currentTimeMillis());
     }
 
     // Method to shutdown the scheduler when bot shuts down
     public void shutdown() {
         scheduler.shutdown();
+        muteScheduler.flush();
     }
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package me.ghosthacks96.discord.services;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared executor for outbound blocking I/O: GitHub polls and checks, the recovery API, and anything else that
+ * waits on a remote. Every task gets its own virtual thread, so a slow remote parks a virtual thread instead of
+ * holding a platform thread, and nothing blocking ever runs on the JDA event thread.
+ */
+public class BlockingIoExecutor {
+
+    // Singleton instance
+    private static volatile BlockingIoExecutor instance;
+    private static final Object INSTANCE_LOCK = new Object();
+
+    private final ExecutorService executor;
+
+    private BlockingIoExecutor() {
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("blocking-io-", 1).factory());
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static BlockingIoExecutor getInstance() {
+        if (instance == null) {
+            synchronized (INSTANCE_LOCK) {
+                if (instance == null) {
+                    instance = new BlockingIoExecutor();
+                }
+            }
+        }
+        return instance;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Run a task on its own virtual thread, logging any failure.
+     */
+    public void execute(String name, Runnable task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    System.err.println("Task " + name + " failed: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            System.err.println("Shutting down, dropping " + name);
+        }
+    }
+
+    /**
+     * Stop accepting tasks and give running ones a few seconds to finish.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("Blocking I/O executor shut down");
+    }
+}
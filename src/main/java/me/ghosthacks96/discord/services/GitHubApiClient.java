@@ -0,0 +1,443 @@
+package me.ghosthacks96.discord.services;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Shared GitHub API client used by every repository and package poller.
+ *
+ * One HTTP/2 HttpClient multiplexes all requests over a small set of connections to api.github.com, one
+ * scheduler thread only keeps time, and the actual polls run on virtual threads of the shared
+ * {@link BlockingIoExecutor}. Adding more tracked repositories adds scheduled tasks and parked virtual threads,
+ * not platform threads or connection pools.
+ *
+ * Polls go through {@link #sendConditional(HttpRequest.Builder)}, which remembers the ETag and Last-Modified
+ * validators of every endpoint and revalidates with them. An unchanged endpoint answers 304 with an empty body,
+ * which GitHub does not count against the rate limit.
+ *
+ * Every request is paced by a {@link GitHubRateLimiter} fed from the response headers, so the hourly budget is
+ * spread across the window and a rate-limited resource is left alone until it resets.
+ */
+public class GitHubApiClient {
+
+    private static final String API_BASE = "https://api.github.com";
+    private static final int MAX_CACHED_VALIDATORS = 2048;
+    private static final long MAX_RATE_LIMIT_WAIT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    // Singleton instance
+    private static volatile GitHubApiClient instance;
+    private static final Object INSTANCE_LOCK = new Object();
+
+    private final HttpClient httpClient;
+    private final Gson gson = new Gson();
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService workers;
+    private final GitHubRateLimiter rateLimiter = new GitHubRateLimiter();
+
+    // Set on the thread of a running manual check, its requests may spend the rate-limit reserve
+    private static final ThreadLocal<Boolean> MANUAL_CHECK = new ThreadLocal<>();
+
+    // Check key -> manual check still running, so repeated requests share it instead of polling again
+    private final ConcurrentMap<String, CompletableFuture<CheckResult>> manualChecks = new ConcurrentHashMap<>();
+
+    // Request URL -> validators of its last 200 response, least recently used evicted first
+    private final Map<String, Validators> validators = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Validators> eldest) {
+            return size() > MAX_CACHED_VALIDATORS;
+        }
+    };
+
+    private GitHubApiClient() {
+        this.workers = BlockingIoExecutor.getInstance().getExecutor();
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(workers) // Response handling runs on virtual threads too
+                .build();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory("github-scheduler"));
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static GitHubApiClient getInstance() {
+        if (instance == null) {
+            synchronized (INSTANCE_LOCK) {
+                if (instance == null) {
+                    instance = new GitHubApiClient();
+                }
+            }
+        }
+        return instance;
+    }
+
+    public Gson getGson() {
+        return gson;
+    }
+
+    public GitHubRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Build a GET request for an API path or absolute URL with the standard GitHub headers.
+     * @param pathOrUrl e.g. "/repos/owner/repo/commits" or a full https URL
+     * @param token Optional token, requests are sent unauthenticated when null or empty
+     */
+    public HttpRequest.Builder request(String pathOrUrl, String token) {
+        String url = pathOrUrl.startsWith("http") ? pathOrUrl : API_BASE + pathOrUrl;
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .header("Accept", "application/vnd.github+json")
+                .header("User-Agent", "GhostBot")
+                .GET();
+        if (token != null && !token.isEmpty()) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    /**
+     * Send a request on the shared client, blocking the calling worker until the rate limiter allows it and
+     * the response arrives.
+     * @throws RateLimitedException if the request's rate-limit resource is not available within 30 seconds
+     */
+    public HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Same as {@link #send(HttpRequest)} with a custom body handler, e.g. ofInputStream() for streaming decoding.
+     */
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) throws IOException, InterruptedException {
+        String resource = resourceFor(request);
+        if (!rateLimiter.acquire(resource, MAX_RATE_LIMIT_WAIT_MILLIS, Boolean.TRUE.equals(MANUAL_CHECK.get()))) {
+            throw new RateLimitedException("GitHub " + resource + " rate limit exhausted, skipping " + request.uri().getPath());
+        }
+        HttpResponse<T> response = httpClient.send(request, bodyHandler);
+        rateLimiter.update(resource, response);
+        return response;
+    }
+
+    /**
+     * @return The URL of the rel="next" entry of the response's Link header, or null on the last page
+     */
+    public static String nextPageUrl(HttpResponse<?> response) {
+        String header = response.headers().firstValue("Link").orElse(null);
+        if (header == null) return null;
+        for (String link : header.split(",")) {
+            String[] parts = link.split(";");
+            for (int i = 1; i < parts.length; i++) {
+                if (parts[i].trim().equals("rel=\"next\"")) {
+                    String target = parts[0].trim();
+                    return target.substring(1, target.length() - 1); // Strip < >
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Rate-limit resource a request is billed against.
+     */
+    public static String resourceFor(HttpRequest request) {
+        return request.uri().getPath().startsWith("/search/") ? "search" : "core";
+    }
+
+    /**
+     * Send a GET as a conditional request using the validators remembered for its URL.
+     * Callers should only parse 200 responses, a 304 means the endpoint is unchanged since the last 200.
+     */
+    public HttpResponse<String> sendConditional(HttpRequest.Builder builder) throws IOException, InterruptedException {
+        return sendConditional(builder, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Same as {@link #sendConditional(HttpRequest.Builder)} with a custom body handler. A streamed body has to be
+     * closed by the caller whatever the status.
+     */
+    public <T> HttpResponse<T> sendConditional(HttpRequest.Builder builder, HttpResponse.BodyHandler<T> bodyHandler)
+            throws IOException, InterruptedException {
+        HttpRequest request = builder.build();
+        String key = request.uri().toString();
+
+        Validators cached;
+        synchronized (validators) {
+            cached = validators.get(key);
+        }
+        if (cached != null) {
+            HttpRequest.Builder conditional = builder.copy();
+            if (cached.etag != null) {
+                conditional.header("If-None-Match", cached.etag);
+            } else {
+                conditional.header("If-Modified-Since", cached.lastModified);
+            }
+            request = conditional.build();
+        }
+
+        HttpResponse<T> response = send(request, bodyHandler);
+        if (response.statusCode() == 200) {
+            String etag = response.headers().firstValue("ETag").orElse(null);
+            String lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+            synchronized (validators) {
+                if (etag != null || lastModified != null) {
+                    validators.put(key, new Validators(etag, lastModified));
+                } else {
+                    validators.remove(key);
+                }
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Run a task periodically on a virtual thread. A run that is still in progress when the next one is due
+     * is not started twice, the overlapping run is skipped.
+     * @return Handle used to cancel the task
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(String name, Runnable task, long initialDelay, long period, TimeUnit unit) {
+        AtomicBoolean running = new AtomicBoolean(false);
+        return scheduler.scheduleAtFixedRate(() -> {
+            if (!running.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                workers.execute(() -> {
+                    try {
+                        task.run();
+                    } catch (Exception e) {
+                        System.err.println("GitHub task " + name + " failed: " + e.getMessage());
+                    } finally {
+                        running.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                running.set(false); // Shutting down
+            }
+        }, initialDelay, period, unit);
+    }
+
+    /**
+     * Run a poll on a virtual thread with an adaptive interval. The poll reports whether it found anything new:
+     * active polls come back after the minimum interval, idle ones back off by doubling up to the maximum.
+     * @return Handle used to cancel the poll
+     */
+    public AdaptivePoll scheduleAdaptive(String name, BooleanSupplier poll, long initialDelayMillis,
+                                         long minIntervalMillis, long maxIntervalMillis) {
+        AdaptivePoll handle = new AdaptivePoll(name, poll, minIntervalMillis, maxIntervalMillis);
+        handle.schedule(initialDelayMillis);
+        return handle;
+    }
+
+    /**
+     * Run a one-off task on a virtual thread.
+     */
+    public void execute(String name, Runnable task) {
+        try {
+            workers.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    System.err.println("GitHub task " + name + " failed: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            System.err.println("Shutting down, dropping GitHub task " + name);
+        }
+    }
+
+    /**
+     * Run a manual check on a virtual thread and report what it found. While a check with the same key is still
+     * running, further requests get its future instead of starting another one. The check's requests skip the
+     * rate limiter's pacing and may spend its reserve, someone is waiting for the answer.
+     * @param key Identifies what is checked, e.g. the repository
+     * @param check Returns the number of new events it posted
+     */
+    public CompletableFuture<CheckResult> manualCheck(String key, ManualCheck check) {
+        CompletableFuture<CheckResult> created = new CompletableFuture<>();
+        CompletableFuture<CheckResult> running = manualChecks.putIfAbsent(key, created);
+        if (running != null) {
+            return running;
+        }
+        try {
+            workers.execute(() -> {
+                long started = System.nanoTime();
+                int newEvents = 0;
+                String error = null;
+                MANUAL_CHECK.set(Boolean.TRUE);
+                try {
+                    newEvents = check.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    error = "Interrupted";
+                } catch (Exception e) {
+                    error = e.getMessage() != null ? e.getMessage() : e.toString();
+                    System.err.println("Manual check of " + key + " failed: " + error);
+                } finally {
+                    MANUAL_CHECK.remove();
+                }
+                long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                manualChecks.remove(key, created);
+                created.complete(new CheckResult(newEvents, latency, rateLimiter.remaining("core"), error));
+            });
+        } catch (RejectedExecutionException e) {
+            manualChecks.remove(key, created);
+            created.complete(new CheckResult(0, 0, rateLimiter.remaining("core"), "The bot is shutting down"));
+        }
+        return created;
+    }
+
+    /**
+     * Stop scheduling polls. Running ones finish on the shared executor, which is shut down separately.
+     */
+    public void shutdown() {
+        scheduler.shutdown();
+        System.out.println("GitHub API client shut down");
+    }
+
+    /**
+     * Handle of a self-rescheduling poll started by {@link #scheduleAdaptive}.
+     */
+    public class AdaptivePoll {
+        private final String name;
+        private final BooleanSupplier poll;
+        private final long minIntervalMillis;
+        private final long maxIntervalMillis;
+        private volatile long intervalMillis;
+        private volatile long minimumDelayMillis;
+        private volatile ScheduledFuture<?> next;
+        private volatile boolean cancelled;
+
+        private AdaptivePoll(String name, BooleanSupplier poll, long minIntervalMillis, long maxIntervalMillis) {
+            this.name = name;
+            this.poll = poll;
+            this.minIntervalMillis = minIntervalMillis;
+            this.maxIntervalMillis = maxIntervalMillis;
+            this.intervalMillis = minIntervalMillis;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> pending = next;
+            if (pending != null) {
+                pending.cancel(false);
+            }
+        }
+
+        public long getIntervalMillis() {
+            return intervalMillis;
+        }
+
+        /**
+         * Never come back sooner than this, e.g. when the server asks for a poll interval.
+         */
+        public void setMinimumDelay(long delayMillis) {
+            this.minimumDelayMillis = delayMillis;
+        }
+
+        private void schedule(long delayMillis) {
+            if (cancelled || scheduler.isShutdown()) return;
+            try {
+                next = scheduler.schedule(this::dispatch, delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Client is shutting down
+            }
+        }
+
+        private void dispatch() {
+            try {
+                workers.execute(this::run);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+            }
+        }
+
+        private void run() {
+            boolean active = false;
+            try {
+                active = poll.getAsBoolean();
+            } catch (Exception e) {
+                System.err.println("GitHub task " + name + " failed: " + e.getMessage());
+            } finally {
+                intervalMillis = active ? minIntervalMillis : Math.min(maxIntervalMillis, intervalMillis * 2);
+                schedule(Math.max(intervalMillis, minimumDelayMillis));
+            }
+        }
+    }
+
+    /**
+     * A manual poll, returns the number of new events it posted
+     */
+    @FunctionalInterface
+    public interface ManualCheck {
+        int run() throws IOException, InterruptedException;
+    }
+
+    /**
+     * Outcome of a manual check.
+     * @param newEvents Commits and comments the check posted
+     * @param latencyMillis How long the check took, including waiting for the rate limiter
+     * @param rateLimitRemaining Core API requests left in the current window, -1 if GitHub hasn't reported it yet
+     * @param error Why the check failed, null if it succeeded
+     */
+    public record CheckResult(int newEvents, long latencyMillis, long rateLimitRemaining, String error) {
+        public boolean succeeded() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Thrown instead of sending a request when its rate-limit resource is exhausted
+     */
+    public static class RateLimitedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public RateLimitedException(String message) {
+            super(message);
+        }
+    }
+
+    // Helper class for the cache validators of one endpoint
+    private static class Validators {
+        final String etag;
+        final String lastModified;
+
+        Validators(String etag, String lastModified) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
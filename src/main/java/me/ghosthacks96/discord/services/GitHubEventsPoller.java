@@ -0,0 +1,312 @@
+package me.ghosthacks96.discord.services;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import net.dv8tion.jda.api.JDA;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the events feed of one GitHub owner (organization or user) and routes the events of tracked repositories
+ * to their channels.
+ *
+ * For an organization one request covers pushes and comments in every repository, instead of three requests per
+ * repository. A user's own feed only lists what that user did, so for personal accounts each tracked repository's
+ * feed is read instead, still one request per repository. Feeds are revalidated with their ETags, followed back
+ * page by page to the last handled event and never polled faster than GitHub's X-Poll-Interval.
+ */
+public class GitHubEventsPoller {
+    private static final long MIN_POLL_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long MAX_POLL_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(8);
+    private static final String LAST_EVENT_CURSOR = "last_event_id";
+    private static final Set<String> DISPATCHED_TYPES = Set.of("PushEvent", "IssueCommentEvent", "PullRequestReviewCommentEvent");
+
+    private final String owner;
+    private final String githubToken;
+    private final GitHubApiClient client;
+    private final GitHubNotifier notifier;
+    // Feed position and the commits and comments already posted, shared by the feed and webhook deliveries
+    // so neither posts twice
+    private final PollerStateStore state;
+
+    // "owner/repo" in lower case -> channel ID receiving its notifications
+    private final Map<String, String> repoChannels = new ConcurrentHashMap<>();
+
+    private volatile Boolean organization; // Unknown until the first successful poll
+    private volatile GitHubApiClient.AdaptivePoll pollTask;
+
+    public GitHubEventsPoller(JDA jda, String githubToken, String owner) {
+        this.owner = owner;
+        this.githubToken = githubToken;
+        this.client = GitHubApiClient.getInstance();
+        this.notifier = new GitHubNotifier(jda);
+        this.state = new PollerStateStore(new File("data/processed_events/owner_" + owner.toLowerCase() + ".log"));
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void addRepository(String repository, String channelId) {
+        repoChannels.put(repository.toLowerCase(), channelId);
+    }
+
+    /**
+     * @return true if the owner has no tracked repositories left
+     */
+    public boolean removeRepository(String repository) {
+        repoChannels.remove(repository.toLowerCase());
+        return repoChannels.isEmpty();
+    }
+
+    public boolean hasRepository(String repository) {
+        return repoChannels.containsKey(repository.toLowerCase());
+    }
+
+    public void startPolling() {
+        pollTask = client.scheduleAdaptive("events of " + owner, () -> {
+            try {
+                return poll() > 0;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }, 0, MIN_POLL_INTERVAL_MILLIS, MAX_POLL_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Manually trigger a poll of the feed. Requests made while a check of this owner is still running, for any of
+     * its repositories, share its result.
+     */
+    public CompletableFuture<GitHubApiClient.CheckResult> manualCheck() {
+        return client.manualCheck("events of " + owner.toLowerCase(), this::poll);
+    }
+
+    /**
+     * Fetch the feed and post every new event of a tracked repository.
+     * @return Number of commits and comments posted
+     */
+    synchronized int poll() throws IOException, InterruptedException {
+        if (!Boolean.FALSE.equals(organization)) {
+            String path = "/orgs/" + owner + "/events";
+            HttpResponse<InputStream> response = fetch(path);
+            if (response.statusCode() != 404 || organization != null) {
+                if (response.statusCode() == 200 || response.statusCode() == 304) {
+                    organization = true;
+                }
+                return readFeed(path, response, LAST_EVENT_CURSOR);
+            }
+            response.body().close();
+            organization = false;
+        }
+
+        // Not an organization. A user's feed only lists what the user did, so pushes and comments by anyone else
+        // are only in the feeds of the repositories themselves
+        int found = 0;
+        for (String repository : repoChannels.keySet()) {
+            String path = "/repos/" + repository + "/events";
+            found += readFeed(path, fetch(path), LAST_EVENT_CURSOR + ":" + repository);
+        }
+        return found;
+    }
+
+    /**
+     * Read a feed starting from its first page, follow Link rel="next" until the events handled by the previous
+     * poll are reached, and post every new event of a tracked repository.
+     * @param cursorKey State key of the ID of the newest event handled from this feed
+     */
+    private int readFeed(String path, HttpResponse<InputStream> response, String cursorKey)
+            throws IOException, InterruptedException {
+        response.headers().firstValue("X-Poll-Interval").ifPresent(value -> {
+            GitHubApiClient.AdaptivePoll task = pollTask;
+            if (task != null) {
+                try {
+                    task.setMinimumDelay(TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim())));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        });
+
+        long lastEventId = state.getCursor(cursorKey, 0);
+        // On the very first poll only post what happened in the last hour, like the per-repository pollers
+        boolean firstPoll = lastEventId == 0;
+        List<GitHubJsonDecoder.FeedEvent> events = new ArrayList<>();
+        boolean caughtUp = false;
+        while (true) {
+            String next;
+            try (InputStream body = response.body()) {
+                if (response.statusCode() != 200) {
+                    if (response.statusCode() != 304) {
+                        System.err.println("GitHub events API error for " + owner + ": " + response.statusCode() + " at " + path);
+                    }
+                    break;
+                }
+                // Newest first, reading stops at the last event handled by the previous poll
+                GitHubJsonDecoder.EventsPage page = GitHubJsonDecoder.readEvents(body, lastEventId, this::hasRepository, DISPATCHED_TYPES);
+                events.addAll(page.events());
+                caughtUp = page.caughtUp();
+                if (caughtUp || firstPoll) break;
+                next = GitHubApiClient.nextPageUrl(response);
+            }
+            if (next == null) break;
+            response = client.send(client.request(next, githubToken).build(), HttpResponse.BodyHandlers.ofInputStream());
+        }
+        if (!caughtUp && !firstPoll && !events.isEmpty()) {
+            // GitHub only keeps the last 300 events of a feed
+            System.err.println("GitHub events feed " + path + " could not be read back to event " + lastEventId
+                    + ", events older than " + events.get(events.size() - 1).createdAt() + " were missed");
+        }
+
+        OffsetDateTime cutoff = OffsetDateTime.now().minusHours(1);
+        int found = 0;
+
+        for (int i = events.size() - 1; i >= 0; i--) { // Process oldest first
+            GitHubJsonDecoder.FeedEvent event = events.get(i);
+            if (event.payload() == null) continue; // Untracked repository or an event type we don't post
+            if (firstPoll && OffsetDateTime.parse(event.createdAt()).isBefore(cutoff)) continue;
+
+            String channelId = repoChannels.get(event.repository().toLowerCase());
+            if (channelId == null) continue;
+
+            try {
+                found += dispatch(event, channelId);
+            } catch (Exception e) {
+                System.err.println("Failed to process GitHub event " + event.id() + " for " + event.repository() + ": " + e.getMessage());
+            }
+        }
+
+        if (!events.isEmpty()) {
+            state.setCursor(cursorKey, events.get(0).id());
+        }
+        state.sync();
+        return found;
+    }
+
+    private HttpResponse<InputStream> fetch(String path) throws IOException, InterruptedException {
+        return client.sendConditional(client.request(path + "?per_page=100", githubToken),
+                HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    /**
+     * @return Number of commits and comments posted for the event
+     */
+    private int dispatch(GitHubJsonDecoder.FeedEvent event, String channelId) {
+        JsonObject payload = event.payload();
+        String repository = event.repository();
+        String createdAt = event.createdAt();
+
+        switch (event.type()) {
+            case "PushEvent" -> {
+                if (payload.has("commits")) {
+                    int posted = 0;
+                    for (JsonElement element : payload.getAsJsonArray("commits")) {
+                        JsonObject commit = element.getAsJsonObject();
+                        // Non-distinct commits were already pushed elsewhere in the repository
+                        if (commit.has("distinct") && !commit.get("distinct").getAsBoolean()) continue;
+                        String sha = commit.get("sha").getAsString();
+                        if (postCommit(channelId, repository, new GitHubNotifier.CommitInfo(
+                                sha,
+                                commit.get("message").getAsString(),
+                                commit.getAsJsonObject("author").get("name").getAsString(),
+                                createdAt,
+                                "https://github.com/" + repository + "/commit/" + sha))) {
+                            posted++;
+                        }
+                    }
+                    return posted;
+                }
+                if (payload.has("head")) {
+                    // Feeds without commit details only carry the new head
+                    String sha = payload.get("head").getAsString();
+                    return postCommit(channelId, repository, new GitHubNotifier.CommitInfo(
+                            sha,
+                            "Pushed to " + payload.get("ref").getAsString(),
+                            event.actor(),
+                            createdAt,
+                            "https://github.com/" + repository + "/commit/" + sha)) ? 1 : 0;
+                }
+                return 0;
+            }
+            case "IssueCommentEvent" -> {
+                if (!"created".equals(payload.get("action").getAsString())) return 0;
+                String number = payload.getAsJsonObject("issue").get("number").getAsString();
+                return postIssueComment(channelId, repository, toCommentInfo(payload.getAsJsonObject("comment"), number)) ? 1 : 0;
+            }
+            case "PullRequestReviewCommentEvent" -> {
+                if (!"created".equals(payload.get("action").getAsString())) return 0;
+                String number = payload.getAsJsonObject("pull_request").get("number").getAsString();
+                return postPRComment(channelId, repository, toCommentInfo(payload.getAsJsonObject("comment"), number)) ? 1 : 0;
+            }
+            default -> {
+                return 0;
+            }
+        }
+    }
+
+    // =================== WEBHOOK DELIVERIES ===================
+
+    public void deliverCommit(String repository, GitHubNotifier.CommitInfo commit) {
+        String channelId = repoChannels.get(repository.toLowerCase());
+        if (channelId != null && postCommit(channelId, repository, commit)) state.sync();
+    }
+
+    public void deliverIssueComment(String repository, GitHubNotifier.CommentInfo comment) {
+        String channelId = repoChannels.get(repository.toLowerCase());
+        if (channelId != null && postIssueComment(channelId, repository, comment)) state.sync();
+    }
+
+    public void deliverPRComment(String repository, GitHubNotifier.CommentInfo comment) {
+        String channelId = repoChannels.get(repository.toLowerCase());
+        if (channelId != null && postPRComment(channelId, repository, comment)) state.sync();
+    }
+
+    private boolean postCommit(String channelId, String repository, GitHubNotifier.CommitInfo commit) {
+        if (!state.add("commit_" + repository.toLowerCase() + "_" + commit.sha())) return false;
+        notifier.sendCommit(channelId, repository, commit);
+        return true;
+    }
+
+    private boolean postIssueComment(String channelId, String repository, GitHubNotifier.CommentInfo comment) {
+        if (!state.add("issue_comment_" + comment.id())) return false;
+        notifier.sendIssueComment(channelId, repository, comment);
+        return true;
+    }
+
+    private boolean postPRComment(String channelId, String repository, GitHubNotifier.CommentInfo comment) {
+        if (!state.add("pr_comment_" + comment.id())) return false;
+        notifier.sendPRComment(channelId, repository, comment);
+        return true;
+    }
+
+    private static GitHubNotifier.CommentInfo toCommentInfo(JsonObject comment, String number) {
+        return new GitHubNotifier.CommentInfo(
+                comment.get("id").getAsLong(),
+                number,
+                comment.getAsJsonObject("user").get("login").getAsString(),
+                comment.get("body").getAsString(),
+                comment.get("created_at").getAsString(),
+                comment.get("html_url").getAsString());
+    }
+
+    public void shutdown() {
+        GitHubApiClient.AdaptivePoll task = pollTask;
+        if (task != null) {
+            task.cancel();
+        }
+        state.close();
+        System.out.println("GitHub events poller for " + owner + " shut down.");
+    }
+}
@@ -0,0 +1,271 @@
+package me.ghosthacks96.discord.services;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Streaming decoders for the GitHub list endpoints the pollers read.
+ *
+ * Responses are read token by token straight from the body stream and only the fields a notification needs are
+ * kept, so a poll allocates a few small records instead of a DOM of the whole page. Items the caller has already
+ * posted are skipped without decoding the rest of their fields.
+ */
+public final class GitHubJsonDecoder {
+
+    /**
+     * One entry of an events feed.
+     * @param payload Only decoded for supported event types of tracked repositories, null otherwise
+     */
+    public record FeedEvent(long id, String type, String repository, String actor, String createdAt, JsonObject payload) {
+    }
+
+    /**
+     * The new events of one page of an events feed.
+     * @param caughtUp true if the page reached an event that was already handled, older pages are not needed
+     */
+    public record EventsPage(List<FeedEvent> events, boolean caughtUp) {
+    }
+
+    private GitHubJsonDecoder() {
+    }
+
+    /**
+     * Decode a page of /repos/{repo}/commits.
+     * @param isSeen Tells whether a SHA was already posted, such commits are skipped
+     * @return The unseen commits in response order
+     */
+    public static List<GitHubNotifier.CommitInfo> readCommits(InputStream body, Predicate<String> isSeen) throws IOException {
+        List<GitHubNotifier.CommitInfo> commits = new ArrayList<>();
+        try (JsonReader reader = reader(body)) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                GitHubNotifier.CommitInfo commit = readCommit(reader, isSeen);
+                if (commit != null) commits.add(commit);
+            }
+            reader.endArray();
+        }
+        return commits;
+    }
+
+    /**
+     * Decode a page of /repos/{repo}/issues/comments or /repos/{repo}/pulls/comments.
+     * @param isSeen Tells whether a comment ID was already posted, such comments are skipped
+     * @return The unseen comments in response order
+     */
+    public static List<GitHubNotifier.CommentInfo> readComments(InputStream body, LongPredicate isSeen) throws IOException {
+        List<GitHubNotifier.CommentInfo> comments = new ArrayList<>();
+        try (JsonReader reader = reader(body)) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                GitHubNotifier.CommentInfo comment = readComment(reader, isSeen);
+                if (comment != null) comments.add(comment);
+            }
+            reader.endArray();
+        }
+        return comments;
+    }
+
+    /**
+     * Decode an events feed up to the first event that is not newer than afterId. The feed is newest first, so
+     * the rest of the page is never read.
+     * @param isTracked Tells whether a repository's payloads are needed
+     * @param types Event types whose payloads are needed
+     * @return The new events, newest first
+     */
+    public static EventsPage readEvents(InputStream body, long afterId, Predicate<String> isTracked,
+                                        Set<String> types) throws IOException {
+        List<FeedEvent> events = new ArrayList<>();
+        try (JsonReader reader = reader(body)) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                FeedEvent event = readEvent(reader, afterId, isTracked, types);
+                if (event == null) {
+                    return new EventsPage(events, true); // Reached events we already handled
+                }
+                events.add(event);
+            }
+        }
+        return new EventsPage(events, false);
+    }
+
+    private static GitHubNotifier.CommitInfo readCommit(JsonReader reader, Predicate<String> isSeen) throws IOException {
+        String sha = null, message = null, authorName = null, date = null, committedAt = null, url = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "sha" -> {
+                    sha = reader.nextString();
+                    if (isSeen.test(sha)) {
+                        skipRest(reader);
+                        return null;
+                    }
+                }
+                case "html_url" -> url = reader.nextString();
+                case "commit" -> {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        switch (reader.nextName()) {
+                            case "message" -> message = reader.nextString();
+                            case "author" -> {
+                                if (reader.peek() == JsonToken.NULL) {
+                                    reader.nextNull();
+                                    continue;
+                                }
+                                reader.beginObject();
+                                while (reader.hasNext()) {
+                                    switch (reader.nextName()) {
+                                        case "name" -> authorName = reader.nextString();
+                                        case "date" -> date = reader.nextString();
+                                        default -> reader.skipValue();
+                                    }
+                                }
+                                reader.endObject();
+                            }
+                            case "committer" -> {
+                                // Differs from the author date for rebased and cherry-picked commits
+                                if (reader.peek() == JsonToken.NULL) {
+                                    reader.nextNull();
+                                    continue;
+                                }
+                                reader.beginObject();
+                                while (reader.hasNext()) {
+                                    if (reader.nextName().equals("date")) {
+                                        committedAt = reader.nextString();
+                                    } else {
+                                        reader.skipValue();
+                                    }
+                                }
+                                reader.endObject();
+                            }
+                            default -> reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new GitHubNotifier.CommitInfo(sha, message, authorName, date, url, committedAt != null ? committedAt : date);
+    }
+
+    private static GitHubNotifier.CommentInfo readComment(JsonReader reader, LongPredicate isSeen) throws IOException {
+        long id = 0;
+        String targetUrl = null, author = null, body = null, createdAt = null, url = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id" -> {
+                    id = reader.nextLong();
+                    if (isSeen.test(id)) {
+                        skipRest(reader);
+                        return null;
+                    }
+                }
+                case "issue_url", "pull_request_url" -> targetUrl = reader.nextString();
+                case "html_url" -> url = reader.nextString();
+                case "body" -> body = reader.nextString();
+                case "created_at" -> createdAt = reader.nextString();
+                case "user" -> author = readLogin(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        String number = targetUrl == null ? "?" : targetUrl.substring(targetUrl.lastIndexOf('/') + 1);
+        return new GitHubNotifier.CommentInfo(id, number, author, body, createdAt, url);
+    }
+
+    /**
+     * @return The event, or null if it is not newer than afterId
+     */
+    private static FeedEvent readEvent(JsonReader reader, long afterId, Predicate<String> isTracked,
+                                       Set<String> types) throws IOException {
+        long id = 0;
+        String type = null, repository = null, actor = null, createdAt = null;
+        JsonObject payload = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id" -> {
+                    id = Long.parseLong(reader.nextString());
+                    if (id <= afterId) {
+                        skipRest(reader);
+                        return null;
+                    }
+                }
+                case "type" -> type = reader.nextString();
+                case "created_at" -> createdAt = reader.nextString();
+                case "actor" -> actor = readLogin(reader);
+                case "repo" -> {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if (reader.nextName().equals("name")) {
+                            repository = reader.nextString();
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                }
+                case "payload" -> {
+                    // GitHub sends repo and type first, if not the payload is kept until they are known
+                    boolean needed = (type == null || types.contains(type))
+                            && (repository == null || isTracked.test(repository));
+                    if (needed) {
+                        payload = JsonParser.parseReader(reader).getAsJsonObject();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (payload != null && (!types.contains(type) || !isTracked.test(repository))) {
+            payload = null;
+        }
+        return new FeedEvent(id, type, repository, actor, createdAt, payload);
+    }
+
+    private static String readLogin(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        String login = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("login")) {
+                login = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return login;
+    }
+
+    private static void skipRest(JsonReader reader) throws IOException {
+        while (reader.hasNext()) {
+            reader.nextName();
+            reader.skipValue();
+        }
+        reader.endObject();
+    }
+
+    private static JsonReader reader(InputStream body) {
+        return new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+}
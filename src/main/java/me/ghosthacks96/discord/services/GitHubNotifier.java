@@ -0,0 +1,109 @@
+package me.ghosthacks96.discord.services;
+
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+import java.awt.Color;
+import java.time.OffsetDateTime;
+
+/**
+ * Builds and posts GitHub notifications.
+ *
+ * Every source (per-repository polling, the events feed, webhooks) decodes what it receives into the compact
+ * records below and hands them here, so a commit or comment looks the same no matter how it was discovered.
+ * Sending goes through the shared {@link NotificationCoalescer}.
+ */
+public class GitHubNotifier {
+
+    private final JDA jda;
+
+    public GitHubNotifier(JDA jda) {
+        this.jda = jda;
+    }
+
+    /**
+     * @param sha Full commit SHA
+     * @param date ISO-8601 timestamp of the commit, or of the push when the source has no commit date
+     * @param committedAt ISO-8601 committer timestamp, what the commits API filters since and until on
+     */
+    public record CommitInfo(String sha, String message, String authorName, String date, String url, String committedAt) {
+        public CommitInfo(String sha, String message, String authorName, String date, String url) {
+            this(sha, message, authorName, date, url, date);
+        }
+    }
+
+    /**
+     * @param number Issue or pull request number the comment belongs to
+     * @param createdAt ISO-8601 creation timestamp
+     */
+    public record CommentInfo(long id, String number, String author, String body, String createdAt, String url) {
+    }
+
+    public void sendCommit(String channelId, String repository, CommitInfo commit) {
+        String sha = commit.sha().substring(0, Math.min(7, commit.sha().length()));
+        String summary = "📝 **" + repository + "** [`" + sha + "`](" + commit.url() + ") "
+                + firstLine(commit.message(), 80) + " - " + commit.authorName();
+        send(channelId, buildCommitEmbed(repository, commit), summary);
+    }
+
+    public void sendIssueComment(String channelId, String repository, CommentInfo comment) {
+        send(channelId, buildCommentEmbed("💬 New Issue Comment in " + repository, Color.BLUE, "Issue", comment),
+                commentSummary(repository, "issue", comment));
+    }
+
+    public void sendPRComment(String channelId, String repository, CommentInfo comment) {
+        send(channelId, buildCommentEmbed("💬 New PR Comment in " + repository, Color.ORANGE, "Pull Request", comment),
+                commentSummary(repository, "PR", comment));
+    }
+
+    public static MessageEmbed buildCommitEmbed(String repository, CommitInfo commit) {
+        String message = commit.message();
+        if (message.length() > 100) {
+            message = message.substring(0, 97) + "...";
+        }
+
+        return new EmbedBuilder()
+                .setTitle("📝 New Commit to " + repository)
+                .setColor(Color.GREEN)
+                .setTimestamp(OffsetDateTime.parse(commit.date()))
+                .addField("Author", commit.authorName(), true)
+                .addField("SHA", commit.sha().substring(0, Math.min(7, commit.sha().length())), true) // Shorten SHA for display
+                .addField("Message", message, false)
+                .setUrl(commit.url())
+                .build();
+    }
+
+    private static MessageEmbed buildCommentEmbed(String title, Color color, String targetLabel, CommentInfo comment) {
+        String body = comment.body();
+        if (body.length() > 200) {
+            body = body.substring(0, 197) + "...";
+        }
+
+        return new EmbedBuilder()
+                .setTitle(title)
+                .setColor(color)
+                .setTimestamp(OffsetDateTime.parse(comment.createdAt()))
+                .addField(targetLabel, "#" + comment.number(), true)
+                .addField("Author", comment.author(), true)
+                .addField("Comment", body, false)
+                .setUrl(comment.url())
+                .build();
+    }
+
+    private static String commentSummary(String repository, String targetLabel, CommentInfo comment) {
+        return "💬 **" + repository + "** [" + targetLabel + " #" + comment.number() + "](" + comment.url() + ") "
+                + firstLine(comment.body(), 80) + " - " + comment.author();
+    }
+
+    private static String firstLine(String text, int maxLength) {
+        int newline = text.indexOf('\n');
+        String line = newline >= 0 ? text.substring(0, newline) : text;
+        return line.length() > maxLength ? line.substring(0, maxLength - 3) + "..." : line;
+    }
+
+    // Bursts to the same channel are packed into a few messages by the coalescer
+    private void send(String channelId, MessageEmbed embed, String summary) {
+        NotificationCoalescer.getInstance().enqueue(jda, channelId, embed, summary);
+    }
+}
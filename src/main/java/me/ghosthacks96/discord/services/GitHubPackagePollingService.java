@@ -10,65 +10,135 @@ import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
 
 import java.awt.*;
+import java.io.File;
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
+import java.net.URLEncoder;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class GitHubPackagePollingService {
 
+    // Checks run side by side on virtual threads, the shared rate limiter decides how fast their requests go out
+    private static final long CHECK_TIMEOUT_SECONDS = 90;
+
     private final JDA jda;
-    private final HttpClient httpClient;
-    private final ScheduledExecutorService scheduler;
+    private final GitHubApiClient client;
     private final String githubToken; // Optional: for higher rate limits
+    private ScheduledFuture<?> pollTask;
+    // Packages with a check in progress, so a manual check never races the scheduled one
+    private final Set<String> checksInFlight = ConcurrentHashMap.newKeySet();
 
     // Store the latest release info to compare against
     private final ConcurrentMap<String, String> lastPackageVersions = new ConcurrentHashMap<>();
+    // Tracked packages and their versions survive restarts, changes are flushed in batches
+    private final PackageStateStore stateStore = new PackageStateStore(PackageStateStore.DEFAULT_FILE);
+    private final AtomicBoolean stateDirty = new AtomicBoolean(false);
+    private ScheduledFuture<?> flushTask;
+
+    // Package name -> repository found by search, so the search API isn't hit on every cycle
+    private final PackageRepositoryCache repositoryCache = new PackageRepositoryCache(new File("data/package_repositories.txt"));
+
+    // Lower case "owner/repo" -> body of its last 200 from /releases/latest. Several packages can resolve to the
+    // same repository while the client keeps one set of validators per URL, so a 304 is answered from here and
+    // every package still compares the tag against its own last version
+    private final ConcurrentMap<String, JsonObject> latestReleases = new ConcurrentHashMap<>();
 
     public GitHubPackagePollingService(JDA jda, String githubToken) {
         this.jda = jda;
         this.githubToken = githubToken;
-        this.httpClient = HttpClient.newBuilder()
-                .followRedirects(HttpClient.Redirect.NORMAL)
-                .build();
-        this.scheduler = Executors.newScheduledThreadPool(2);
+        this.client = GitHubApiClient.getInstance();
 
+        restoreState();
         // Start polling every 10 minutes
         startPolling();
     }
 
+    /**
+     * @return true if packages were tracked before the last shutdown, the service should then be started
+     */
+    public static boolean hasSavedState() {
+        return PackageStateStore.DEFAULT_FILE.exists();
+    }
+
+    private void restoreState() {
+        int restored = 0;
+        for (PackageStateStore.Entry entry : stateStore.load()) {
+            String key = entry.trackedPackage().name.toLowerCase();
+            // Packages tracked since startup win over the saved ones
+            if (GitHubTrackCommand.trackedPackages.putIfAbsent(key, entry.trackedPackage()) == null) {
+                restored++;
+            }
+            if (entry.lastVersion() != null) {
+                lastPackageVersions.putIfAbsent(key, entry.lastVersion());
+            }
+        }
+        if (restored > 0) {
+            System.out.println("Restored " + restored + " tracked packages");
+        }
+    }
+
+    /**
+     * Note that the tracked packages changed, they are written with the next flush.
+     */
+    public void markStateChanged() {
+        stateDirty.set(true);
+    }
+
+    private void flushState() {
+        if (stateDirty.getAndSet(false)) {
+            stateStore.save(GitHubTrackCommand.trackedPackages.values(), lastPackageVersions);
+        }
+    }
+
     private void startPolling() {
-        scheduler.scheduleAtFixedRate(this::checkAllPackages, 1, 10, TimeUnit.MINUTES);
+        pollTask = client.scheduleAtFixedRate("package polling", this::checkAllPackages, 1, 10, TimeUnit.MINUTES);
+        flushTask = client.scheduleAtFixedRate("package state flush", this::flushState, 30, 30, TimeUnit.SECONDS);
         System.out.println("GitHub Package Polling Service started - checking every 10 minutes");
     }
 
+    /**
+     * Check every tracked package concurrently and wait for the sweep to finish. A package that takes longer
+     * than the timeout is given up on for this cycle so it can't hold up the others.
+     */
     private void checkAllPackages() {
-        try {
-            for (GitHubTrackCommand.TrackedPackage pkg : GitHubTrackCommand.trackedPackages.values()) {
-                checkPackageForUpdates(pkg);
-
-                // Add delay between requests to respect rate limits
-                Thread.sleep(2000);
-            }
-        } catch (Exception e) {
-            System.err.println("Error during package polling: " + e.getMessage());
+        long started = System.currentTimeMillis();
+        List<CompletableFuture<Void>> checks = new ArrayList<>();
+        for (GitHubTrackCommand.TrackedPackage pkg : GitHubTrackCommand.trackedPackages.values()) {
+            checks.add(CompletableFuture.runAsync(() -> checkPackageForUpdates(pkg),
+                            BlockingIoExecutor.getInstance().getExecutor())
+                    .orTimeout(CHECK_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .exceptionally(e -> {
+                        System.err.println("Package check for " + pkg.name + " did not finish: " + e);
+                        return null;
+                    }));
         }
+        if (checks.isEmpty()) return;
+        CompletableFuture.allOf(checks.toArray(new CompletableFuture<?>[0])).join();
+        System.out.println("Checked " + checks.size() + " packages in " + (System.currentTimeMillis() - started) + "ms");
     }
 
     public void checkPackageForUpdates(GitHubTrackCommand.TrackedPackage trackedPackage) {
+        String key = trackedPackage.name.toLowerCase();
+        if (!checksInFlight.add(key)) {
+            return; // Already being checked
+        }
         try {
             String packageName = trackedPackage.name;
 
-            // First, try to find the GitHub repository for this package
-            String repoPath = findRepositoryForPackage(packageName);
+            // First, find the GitHub repository for this package
+            String repoPath = resolveRepository(trackedPackage);
             if (repoPath == null) {
                 System.out.println("Could not find GitHub repository for package: " + packageName);
                 return;
@@ -87,6 +157,7 @@ public class GitHubPackagePollingService {
             // Check if this is a new version
             if (lastKnownVersion == null || !latestVersion.equals(lastKnownVersion)) {
                 lastPackageVersions.put(packageName.toLowerCase(), latestVersion);
+                markStateChanged();
 
                 // Only send notification if we had a previous version (not first run)
                 if (lastKnownVersion != null) {
@@ -98,41 +169,50 @@ public class GitHubPackagePollingService {
 
         } catch (Exception e) {
             System.err.println("Error checking package " + trackedPackage.name + ": " + e.getMessage());
+        } finally {
+            checksInFlight.remove(key);
         }
     }
 
-    private String findRepositoryForPackage(String packageName) {
-        try {
-            // Search GitHub for repositories with the package name
-            String searchUrl = "https://api.github.com/search/repositories?q=" + packageName + "+in:name&sort=stars&order=desc";
-
-            HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                    .uri(URI.create(searchUrl))
-                    .header("Accept", "application/vnd.github+json")
-                    .header("User-Agent", "GhostBot-PackageTracker");
-
-            if (githubToken != null && !githubToken.isEmpty()) {
-                requestBuilder.header("Authorization", "Bearer " + githubToken);
-            }
+    /**
+     * @return The repository pinned for the package, else the cached or searched one, or null if none was found
+     */
+    private String resolveRepository(GitHubTrackCommand.TrackedPackage trackedPackage) throws IOException, InterruptedException {
+        if (trackedPackage.repository != null) {
+            return trackedPackage.repository;
+        }
+        PackageRepositoryCache.Resolution cached = repositoryCache.get(trackedPackage.name);
+        if (cached != null) {
+            return cached.repository();
+        }
+        String repoPath = findRepositoryForPackage(trackedPackage.name);
+        repositoryCache.put(trackedPackage.name, repoPath); // Misses are cached too, for a shorter time
+        return repoPath;
+    }
 
-            HttpRequest request = requestBuilder.build();
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    /**
+     * @return The most starred repository matching the name, or null if the search found nothing
+     * @throws IOException if the search failed, nothing should be cached then
+     */
+    private String findRepositoryForPackage(String packageName) throws IOException, InterruptedException {
+        // Search GitHub for repositories with the package name
+        String searchUrl = "https://api.github.com/search/repositories?q="
+                + URLEncoder.encode(packageName, StandardCharsets.UTF_8) + "+in:name&sort=stars&order=desc&per_page=1";
 
-            if (response.statusCode() == 200) {
-                JsonObject searchResult = JsonParser.parseString(response.body()).getAsJsonObject();
-                JsonArray items = searchResult.getAsJsonArray("items");
+        HttpRequest request = client.request(searchUrl, githubToken).build();
+        HttpResponse<String> response = client.send(request);
 
-                if (items.size() > 0) {
-                    // Return the most starred repository that matches
-                    JsonObject topRepo = items.get(0).getAsJsonObject();
-                    return topRepo.get("full_name").getAsString();
-                }
-            }
-
-        } catch (Exception e) {
-            System.err.println("Error searching for repository: " + e.getMessage());
+        if (response.statusCode() != 200) {
+            throw new IOException("GitHub search API error for " + packageName + ": " + response.statusCode());
         }
+        JsonObject searchResult = JsonParser.parseString(response.body()).getAsJsonObject();
+        JsonArray items = searchResult.getAsJsonArray("items");
 
+        if (items.size() > 0) {
+            // Return the most starred repository that matches
+            JsonObject topRepo = items.get(0).getAsJsonObject();
+            return topRepo.get("full_name").getAsString();
+        }
         return null;
     }
 
@@ -140,20 +220,22 @@ public class GitHubPackagePollingService {
         try {
             String apiUrl = "https://api.github.com/repos/" + repoPath + "/releases/latest";
 
-            HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                    .uri(URI.create(apiUrl))
-                    .header("Accept", "application/vnd.github+json")
-                    .header("User-Agent", "GhostBot-PackageTracker");
+            String key = repoPath.toLowerCase();
 
-            if (githubToken != null && !githubToken.isEmpty()) {
-                requestBuilder.header("Authorization", "Bearer " + githubToken);
+            HttpResponse<String> response = client.sendConditional(client.request(apiUrl, githubToken));
+            if (response.statusCode() == 304) {
+                JsonObject cached = latestReleases.get(key);
+                if (cached != null) {
+                    return cached;
+                }
+                // Another check's 200 stored the validators but not its body yet, ask for the full response
+                response = client.send(client.request(apiUrl, githubToken).build());
             }
 
-            HttpRequest request = requestBuilder.build();
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
             if (response.statusCode() == 200) {
-                return JsonParser.parseString(response.body()).getAsJsonObject();
+                JsonObject release = JsonParser.parseString(response.body()).getAsJsonObject();
+                latestReleases.put(key, release);
+                return release;
             } else if (response.statusCode() == 404) {
                 System.out.println("No releases found for repository: " + repoPath);
             } else {
@@ -250,21 +332,22 @@ public class GitHubPackagePollingService {
     public void manualCheckPackage(String packageName) {
         GitHubTrackCommand.TrackedPackage trackedPackage = GitHubTrackCommand.trackedPackages.get(packageName.toLowerCase());
         if (trackedPackage != null) {
-            scheduler.execute(() -> checkPackageForUpdates(trackedPackage));
+            BlockingIoExecutor.getInstance().execute("package check " + packageName,
+                    () -> checkPackageForUpdates(trackedPackage));
         } else {
             System.err.println("Package not found for manual check: " + packageName);
         }
     }
 
     public void shutdown() {
-        scheduler.shutdown();
-        try {
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            scheduler.shutdownNow();
+        if (pollTask != null) {
+            pollTask.cancel(false);
+        }
+        if (flushTask != null) {
+            flushTask.cancel(false);
         }
+        markStateChanged();
+        flushState();
         System.out.println("GitHub Package Polling Service shut down");
     }
 }
\ No newline at end of file
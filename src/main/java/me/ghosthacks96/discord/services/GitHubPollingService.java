@@ -2,345 +2,342 @@ package me.ghosthacks96.discord.services;
 
 import net.dv8tion.jda.api.JDA;
 
-import net.dv8tion.jda.api.EmbedBuilder;
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonArray;
 import net.dv8tion.jda.api.entities.channel.Channel;
-import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.http.HttpClient;
+import java.io.InputStream;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.net.URI;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
-import java.awt.Color;
 import java.util.*;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
 
 public class GitHubPollingService {
+    // Active repositories are polled every minute, idle ones back off by doubling up to 16 minutes
+    private static final long MIN_POLL_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long MAX_POLL_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(16);
+    // Catch-up after downtime or a large push reads up to 1000 items per endpoint and poll
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_PAGES = 10;
+
     private final JDA jda;
-    private final HttpClient httpClient;
-    private final Gson gson;
+    private final GitHubApiClient client;
+    private final GitHubNotifier notifier;
     private final String githubToken;
     private final String channelId;
-    private final Set<String> processedEventIds;
-    private final ScheduledExecutorService scheduler;
+    // Posted event IDs and poll cursors, logged as they change so a restart resumes where polling stopped
+    private final PollerStateStore state;
+    // Polls run on the shared client's workers, these handles cancel them
+    private final List<GitHubApiClient.AdaptivePoll> pollTasks = new CopyOnWriteArrayList<>();
     private final String repo;
-    private final File processedEventsFile;
 
-    // Store last check times for each repo
+    // Store last check times for each repo, backed by the state log
     private final Map<String, OffsetDateTime> lastCheckTimes;
 
     public GitHubPollingService(JDA jda, String githubToken, String repoID, String channelId) {
         this.jda = jda;
         this.repo = repoID;
-        this.httpClient = HttpClient.newHttpClient();
-        this.gson = new Gson();
+        this.client = GitHubApiClient.getInstance();
+        this.notifier = new GitHubNotifier(jda);
         this.githubToken = githubToken;
         this.channelId = channelId;
-        this.processedEventIds = new HashSet<>();
-        this.scheduler = Executors.newScheduledThreadPool(2);
-        this.lastCheckTimes = new HashMap<>();
-        this.processedEventsFile = new File("data/processed_events/" + repoID.replace('/', '_') + ".txt");
-        loadProcessedEvents();
+        this.lastCheckTimes = new ConcurrentHashMap<>();
+        String fileName = "data/processed_events/" + repoID.replace('/', '_');
+        this.state = new PollerStateStore(new File(fileName + ".log"));
+        state.migrateLegacy(new File(fileName + ".txt"));
         Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
     }
 
-    private void loadProcessedEvents() {
-        try {
-            if (!processedEventsFile.getParentFile().exists()) {
-                processedEventsFile.getParentFile().mkdirs();
-            }
-            if (processedEventsFile.exists()) {
-                List<String> lines = java.nio.file.Files.readAllLines(processedEventsFile.toPath());
-                processedEventIds.addAll(lines);
-            }
-        } catch (Exception e) {
-            System.err.println("Failed to load processed events for repo: " + repo + ", error: " + e.getMessage());
-        }
-    }
-
-    private void saveProcessedEvents() {
-        try {
-            if (!processedEventsFile.getParentFile().exists()) {
-                processedEventsFile.getParentFile().mkdirs();
-            }
-            java.nio.file.Files.write(processedEventsFile.toPath(), processedEventIds);
-        } catch (Exception e) {
-            System.err.println("Failed to save processed events for repo: " + repo + ", error: " + e.getMessage());
-        }
-    }
-
     public String getChannelId() {
         return channelId;
     }
 
     public void startPolling() {
-        int intervalMinutes = 5;
-
         // Poll for commits/pushes
-        scheduler.scheduleAtFixedRate(() -> {
+        pollTasks.add(client.scheduleAdaptive(repo + " commits", () -> {
             try {
-                checkForNewCommits(repo);
+                return checkForNewCommits(repo) > 0;
             } catch (IOException e) {
                 throw new RuntimeException(e);
             } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 throw new RuntimeException(e);
             }
-        }, 0, intervalMinutes, TimeUnit.MINUTES);
+        }, 0, MIN_POLL_INTERVAL_MILLIS, MAX_POLL_INTERVAL_MILLIS));
 
         // Poll for comments
-        scheduler.scheduleAtFixedRate(() -> {
+        pollTasks.add(client.scheduleAdaptive(repo + " comments", () -> {
             try {
-                checkForNewComments(repo);
+                return checkForNewComments(repo) > 0;
             } catch (IOException e) {
                 throw new RuntimeException(e);
             } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 throw new RuntimeException(e);
             }
-        }, 120, intervalMinutes, TimeUnit.SECONDS); // Offset by 30 seconds
+        }, TimeUnit.SECONDS.toMillis(30), MIN_POLL_INTERVAL_MILLIS, MAX_POLL_INTERVAL_MILLIS)); // Offset by 30 seconds
     }
 
-    private void checkForNewCommits(String repository) throws IOException, InterruptedException {
-        String url = String.format("https://api.github.com/repos/%s/commits", repository);
-        OffsetDateTime since = lastCheckTimes.get(repository);
-        if (since == null) {
-            // Default to 1 hour ago if never checked before
-            since = OffsetDateTime.now().minusHours(1);
+    /**
+     * @return Number of new commits posted
+     */
+    private int checkForNewCommits(String repository) throws IOException, InterruptedException {
+        // The cursor is pinned so idle polls keep the same URL and can be revalidated with its ETag
+        OffsetDateTime since = cursor(repository);
+        String url = String.format("https://api.github.com/repos/%s/commits?per_page=%d&since=%s",
+                repository, PAGE_SIZE, since.format(DateTimeFormatter.ISO_INSTANT));
+        // Set while a backlog larger than MAX_PAGES is drained, the next read continues below the oldest commit read
+        String untilKey = repository + "_commits_until";
+        String backlogNewestKey = repository + "_commits_backlog_newest";
+        long until = state.getCursor(untilKey, -1);
+        if (until >= 0) {
+            url += "&until=" + DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(until));
         }
-        String fullUrl = url + "?since=" + since.format(DateTimeFormatter.ISO_INSTANT);
-        System.out.println("[GitHubPollingService] Checking commits at: " + fullUrl);
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(fullUrl))
-                .header("Authorization", "Bearer " + githubToken)
-                .header("Accept", "application/vnd.github.v3+json")
-                .GET()
-                .build();
-
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() == 200) {
-            JsonArray commits = gson.fromJson(response.body(), JsonArray.class);
-
-            for (int i = commits.size() - 1; i >= 0; i--) { // Process oldest first
-                JsonObject commit = commits.get(i).getAsJsonObject();
-                String eventId = repository + "_commit_" + commit.get("sha").getAsString();
-
-                if (!processedEventIds.contains(eventId)) {
-                    processedEventIds.add(eventId);
-                    sendCommitNotification(repository, commit);
-                }
+        System.out.println("[GitHubPollingService] Checking commits at: " + url);
+
+        // Commits come newest first, so every page is read before posting them oldest first
+        List<GitHubNotifier.CommitInfo> commits = new ArrayList<>();
+        boolean complete = readPages(url, body -> commits.addAll(GitHubJsonDecoder.readCommits(body,
+                sha -> state.contains(commitKey(repository, sha)))));
+
+        int found = 0;
+        OffsetDateTime newest = null;
+        OffsetDateTime oldest = null;
+        for (int i = commits.size() - 1; i >= 0; i--) { // Process oldest first
+            GitHubNotifier.CommitInfo commit = commits.get(i);
+            if (state.add(commitKey(repository, commit.sha()))) {
+                notifier.sendCommit(channelId, repository, commit);
+                found++;
+            }
+            // The API filters on the committer date, the author date is only shown
+            if (commit.committedAt() != null) {
+                OffsetDateTime committedAt = OffsetDateTime.parse(commit.committedAt());
+                newest = max(newest, committedAt);
+                oldest = oldest == null || committedAt.isBefore(oldest) ? committedAt : oldest;
             }
+        }
 
-            if (commits.size() > 0) {
-                lastCheckTimes.put(repository, OffsetDateTime.now());
+        if (complete) {
+            if (until >= 0) {
+                // Backlog drained, move past everything it contained
+                newest = max(newest, toDateTime(state.getCursor(backlogNewestKey, -1)));
+                state.setCursor(untilKey, -1);
+                state.setCursor(backlogNewestKey, -1);
+            }
+            advanceCursor(repository, newest);
+        } else if (oldest != null) {
+            // Cut short, the pages read are the newest part of the backlog. The since cursor stays put until the
+            // older commits have been read too
+            if (until < 0) {
+                state.setCursor(backlogNewestKey, newest.toInstant().toEpochMilli());
             }
+            long next = oldest.toInstant().toEpochMilli();
+            if (until >= 0 && next >= until) {
+                // More than a full read of commits share one timestamp, step past it rather than read it forever
+                System.err.println("[GitHubPollingService] " + repository + " has too many commits at " + oldest + ", skipping the rest of them");
+                next = until - 1000;
+            }
+            state.setCursor(untilKey, next);
         }
+        state.sync();
+        return found;
     }
 
-    private void checkForNewComments(String repository) throws IOException, InterruptedException {
+    /**
+     * @return Number of new issue and PR comments posted
+     */
+    private int checkForNewComments(String repository) throws IOException, InterruptedException {
         // Check issue comments
-        checkIssueComments(repository);
+        int found = checkIssueComments(repository);
         // Check PR comments
-        checkPRComments(repository);
+        found += checkPRComments(repository);
+        state.sync();
+        return found;
     }
 
-    private void checkIssueComments(String repository) throws IOException, InterruptedException {
-        String url = String.format("https://api.github.com/repos/%s/issues/comments", repository);
-        OffsetDateTime since = lastCheckTimes.getOrDefault(repository + "_comments", OffsetDateTime.now().minusHours(1));
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url + "?since=" + since.format(DateTimeFormatter.ISO_INSTANT) + "&sort=created&direction=asc"))
-                .header("Authorization", "Bearer " + githubToken)
-                .header("Accept", "application/vnd.github.v3+json")
-                .GET()
-                .build();
-
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() == 200) {
-            JsonArray comments = gson.fromJson(response.body(), JsonArray.class);
+    private int checkIssueComments(String repository) throws IOException, InterruptedException {
+        return checkComments(repository, "issues/comments", repository + "_comments", GitHubPollingService::issueCommentKey,
+                comment -> notifier.sendIssueComment(channelId, repository, comment));
+    }
 
-            for (int i = 0; i < comments.size(); i++) {
-                JsonObject comment = comments.get(i).getAsJsonObject();
-                String eventId = "issue_comment_" + comment.get("id").getAsString();
+    private int checkPRComments(String repository) throws IOException, InterruptedException {
+        return checkComments(repository, "pulls/comments", repository + "_pr_comments", GitHubPollingService::prCommentKey,
+                comment -> notifier.sendPRComment(channelId, repository, comment));
+    }
 
-                if (!processedEventIds.contains(eventId)) {
-                    processedEventIds.add(eventId);
-                    sendIssueCommentNotification(repository, comment);
+    /**
+     * Comments come oldest first, so each page is posted as soon as it is read. When the page limit cuts a
+     * backlog short the cursor stops at the last posted comment and the next poll continues from there.
+     */
+    private int checkComments(String repository, String endpoint, String cursorKey, LongFunction<String> eventKey,
+                                  Consumer<GitHubNotifier.CommentInfo> sender) throws IOException, InterruptedException {
+        OffsetDateTime since = cursor(cursorKey);
+        String url = String.format("https://api.github.com/repos/%s/%s?per_page=%d&since=%s&sort=created&direction=asc",
+                repository, endpoint, PAGE_SIZE, since.format(DateTimeFormatter.ISO_INSTANT));
+
+        int[] found = {0};
+        OffsetDateTime[] newest = {null};
+        try {
+            readPages(url, body -> {
+                for (GitHubNotifier.CommentInfo comment : GitHubJsonDecoder.readComments(body, id -> state.contains(eventKey.apply(id)))) {
+                    if (state.add(eventKey.apply(comment.id()))) {
+                        sender.accept(comment);
+                        found[0]++;
+                    }
+                    newest[0] = latest(newest[0], comment.createdAt());
                 }
-            }
-
-            if (comments.size() > 0) {
-                lastCheckTimes.put(repository + "_comments", OffsetDateTime.now());
-            }
+            });
+        } finally {
+            // Keep how far we got, even if a later page failed
+            advanceCursor(cursorKey, newest[0]);
         }
+        return found[0];
     }
 
-    private void checkPRComments(String repository) throws IOException, InterruptedException {
-        String url = String.format("https://api.github.com/repos/%s/pulls/comments", repository);
-        OffsetDateTime since = lastCheckTimes.getOrDefault(repository + "_pr_comments", OffsetDateTime.now().minusHours(1));
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url + "?since=" + since.format(DateTimeFormatter.ISO_INSTANT) + "&sort=created&direction=asc"))
-                .header("Authorization", "Bearer " + githubToken)
-                .header("Accept", "application/vnd.github.v3+json")
-                .GET()
-                .build();
-
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() == 200) {
-            JsonArray comments = gson.fromJson(response.body(), JsonArray.class);
-
-            for (int i = 0; i < comments.size(); i++) {
-                JsonObject comment = comments.get(i).getAsJsonObject();
-                String eventId = "pr_comment_" + comment.get("id").getAsString();
-
-                if (!processedEventIds.contains(eventId)) {
-                    processedEventIds.add(eventId);
-                    sendPRCommentNotification(repository, comment);
+    /**
+     * Read the first page with a conditional request, then follow Link rel="next" up to MAX_PAGES pages.
+     * A 304 on the first page means nothing changed since the last poll.
+     * @return true if every page was read, false if an error or the page limit cut the read short
+     */
+    private boolean readPages(String url, PageHandler handler) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = client.sendConditional(client.request(url, githubToken),
+                HttpResponse.BodyHandlers.ofInputStream());
+        for (int page = 1; ; page++) {
+            String next;
+            try (InputStream body = response.body()) {
+                if (response.statusCode() != 200) {
+                    if (response.statusCode() != 304) {
+                        System.err.println("GitHub API error for " + repo + ": " + response.statusCode() + " at " + response.uri());
+                        return false;
+                    }
+                    return true;
                 }
+                handler.handle(body);
+                next = GitHubApiClient.nextPageUrl(response);
             }
-
-            if (comments.size() > 0) {
-                lastCheckTimes.put(repository + "_pr_comments", OffsetDateTime.now());
+            if (next == null) {
+                return true;
+            }
+            if (page == MAX_PAGES) {
+                System.err.println("[GitHubPollingService] " + repo + " has more than " + MAX_PAGES + " pages of new items, stopping at " + url);
+                return false;
             }
+            response = client.send(client.request(next, githubToken).build(), HttpResponse.BodyHandlers.ofInputStream());
         }
     }
 
-    private boolean isDuplicateEmbed(String repository, String uniqueId) {
-        // Use processedEventIds to track already posted events
-        return processedEventIds.contains(repository + "_" + uniqueId);
+    @FunctionalInterface
+    private interface PageHandler {
+        void handle(InputStream body) throws IOException;
     }
 
-    private void markEmbedPosted(String repository, String uniqueId) {
-        processedEventIds.add(repository + "_" + uniqueId);
+    /**
+     * Cursor of an endpoint, restored from the state log or 1 hour ago if it was never checked before.
+     */
+    private OffsetDateTime cursor(String key) {
+        return lastCheckTimes.computeIfAbsent(key, k -> {
+            OffsetDateTime saved = toDateTime(state.getCursor(k, -1));
+            return saved != null ? saved : OffsetDateTime.now().minusHours(1);
+        });
     }
 
-    private void sendCommitNotification(String repository, JsonObject commit) {
-        String sha = commit.get("sha").getAsString();
-        if (isDuplicateEmbed(repository, sha)) return;
-
-        TextChannel channel = jda.getTextChannelById(channelId);
-        if (channel == null) return;
-
-        JsonObject commitData = commit.getAsJsonObject("commit");
-        JsonObject author = commitData.getAsJsonObject("author");
-        String message = commitData.get("message").getAsString();
-        sha = sha.substring(0, 7); // Shorten SHA for display
-
-        if (message.length() > 100) {
-            message = message.substring(0, 97) + "...";
-        }
+    /**
+     * Move a cursor forward to the timestamp of the newest item seen, never backwards and never to the wall
+     * clock, so items GitHub indexes late are still picked up. The overlap is filtered by the posted event IDs.
+     */
+    private void advanceCursor(String key, OffsetDateTime newest) {
+        if (newest == null) return;
+        OffsetDateTime current = lastCheckTimes.merge(key, newest, (a, b) -> b.isAfter(a) ? b : a);
+        state.setCursor(key, current.toInstant().toEpochMilli());
+    }
 
-        EmbedBuilder embed = new EmbedBuilder()
-                .setTitle("📝 New Commit to " + repository)
-                .setColor(Color.GREEN)
-                .setTimestamp(OffsetDateTime.parse(author.get("date").getAsString()))
-                .addField("Author", author.get("name").getAsString(), true)
-                .addField("SHA", sha, true)
-                .addField("Message", message, false)
-                .setUrl(commit.get("html_url").getAsString());
-
-        channel.sendMessageEmbeds(embed.build()).queue();
-        markEmbedPosted(repository, sha);
+    private static OffsetDateTime latest(OffsetDateTime current, String timestamp) {
+        if (timestamp == null) return current;
+        return max(current, OffsetDateTime.parse(timestamp));
     }
 
-    private void sendIssueCommentNotification(String repository, JsonObject comment) {
-        String commentId = comment.get("id").getAsString();
-        if (isDuplicateEmbed(repository, "issue_comment_" + commentId)) return;
+    private static OffsetDateTime max(OffsetDateTime a, OffsetDateTime b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return b.isAfter(a) ? b : a;
+    }
 
-        TextChannel channel = jda.getTextChannelById(channelId);
-        if (channel == null) return;
+    /**
+     * @return The time of a saved cursor, null for -1
+     */
+    private static OffsetDateTime toDateTime(long epochMillis) {
+        return epochMillis >= 0 ? OffsetDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC) : null;
+    }
 
-        JsonObject user = comment.getAsJsonObject("user");
-        String body = comment.get("body").getAsString();
-        String issueUrl = comment.get("issue_url").getAsString();
-        String issueNumber = issueUrl.substring(issueUrl.lastIndexOf('/') + 1);
+    // Keys of posted events, shared by polls and webhook deliveries
 
-        if (body.length() > 200) {
-            body = body.substring(0, 197) + "...";
-        }
+    static String commitKey(String repository, String sha) {
+        return repository + "_commit_" + sha;
+    }
 
-        EmbedBuilder embed = new EmbedBuilder()
-                .setTitle("💬 New Issue Comment in " + repository)
-                .setColor(Color.BLUE)
-                .setTimestamp(OffsetDateTime.parse(comment.get("created_at").getAsString()))
-                .addField("Issue", "#" + issueNumber, true)
-                .addField("Author", user.get("login").getAsString(), true)
-                .addField("Comment", body, false)
-                .setUrl(comment.get("html_url").getAsString());
-
-        channel.sendMessageEmbeds(embed.build()).queue();
-        markEmbedPosted(repository, "issue_comment_" + commentId);
+    static String issueCommentKey(long id) {
+        return "issue_comment_" + id;
     }
 
-    private void sendPRCommentNotification(String repository, JsonObject comment) {
-        String commentId = comment.get("id").getAsString();
-        if (isDuplicateEmbed(repository, "pr_comment_" + commentId)) return;
+    static String prCommentKey(long id) {
+        return "pr_comment_" + id;
+    }
 
-        TextChannel channel = jda.getTextChannelById(channelId);
-        if (channel == null) return;
+    // =================== WEBHOOK DELIVERIES ===================
+    // Deliveries share the polls' event IDs, so whichever source sees an event first posts it
 
-        JsonObject user = comment.getAsJsonObject("user");
-        String body = comment.get("body").getAsString();
-        String pullRequestUrl = comment.get("pull_request_url").getAsString();
-        String prNumber = pullRequestUrl.substring(pullRequestUrl.lastIndexOf('/') + 1);
+    public void deliverCommit(GitHubNotifier.CommitInfo commit) {
+        if (state.add(commitKey(repo, commit.sha()))) {
+            notifier.sendCommit(channelId, repo, commit);
+            state.sync();
+        }
+    }
 
-        if (body.length() > 200) {
-            body = body.substring(0, 197) + "...";
+    public void deliverIssueComment(GitHubNotifier.CommentInfo comment) {
+        if (state.add(issueCommentKey(comment.id()))) {
+            notifier.sendIssueComment(channelId, repo, comment);
+            state.sync();
         }
+    }
 
-        EmbedBuilder embed = new EmbedBuilder()
-                .setTitle("💬 New PR Comment in " + repository)
-                .setColor(Color.ORANGE)
-                .setTimestamp(OffsetDateTime.parse(comment.get("created_at").getAsString()))
-                .addField("Pull Request", "#" + prNumber, true)
-                .addField("Author", user.get("login").getAsString(), true)
-                .addField("Comment", body, false)
-                .setUrl(comment.get("html_url").getAsString());
-
-        channel.sendMessageEmbeds(embed.build()).queue();
-        markEmbedPosted(repository, "pr_comment_" + commentId);
+    public void deliverPRComment(GitHubNotifier.CommentInfo comment) {
+        if (state.add(prCommentKey(comment.id()))) {
+            notifier.sendPRComment(channelId, repo, comment);
+            state.sync();
+        }
     }
 
     /**
-     * Manually trigger a check for new commits and comments.
+     * Manually trigger a check for new commits and comments. Requests made while a check of this repository is
+     * still running share its result.
      */
-    public void manualCheck() {
-        try {
-            checkForNewCommits(repo);
-            checkForNewComments(repo);
-        } catch (Exception e) {
-            System.err.println("Manual check failed for repo: " + repo + ", error: " + e.getMessage());
-        }
+    public CompletableFuture<GitHubApiClient.CheckResult> manualCheck() {
+        return client.manualCheck(repo.toLowerCase(), () -> checkForNewCommits(repo) + checkForNewComments(repo));
     }
 
 
     public void shutdown() {
-        saveProcessedEvents();
-        scheduler.shutdown();
-        try {
-            if (!scheduler.awaitTermination(30, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            scheduler.shutdownNow();
+        for (GitHubApiClient.AdaptivePoll task : pollTasks) {
+            task.cancel();
         }
+        pollTasks.clear();
+        state.close();
         System.out.println("GitHubPollingService shutdown complete.");
     }
 
     public void DESTROY() {
         try{
             shutdown();
-            processedEventsFile.delete();
+            state.delete();
         }catch(Exception e){
 
         }
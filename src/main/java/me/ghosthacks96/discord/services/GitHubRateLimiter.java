@@ -0,0 +1,189 @@
+package me.ghosthacks96.discord.services;
+
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paces GitHub API calls per rate-limit resource ("core", "search", ...).
+ *
+ * Every response updates the resource's budget from the X-RateLimit-* headers, and requests are spaced so the
+ * remaining budget lasts until the reset instead of being burnt at the start of the hour. Callers may run ahead
+ * of that spacing by up to a minute, so a sweep over many items goes out as a burst while the budget is healthy.
+ * A 403 with Retry-After or an exhausted budget, or any 429, blocks the resource until Retry-After or the reset
+ * time. Only status and headers are looked at, most bodies are still an unread stream at this point.
+ */
+public class GitHubRateLimiter {
+
+    private static final int MAX_RESERVE = 50; // Calls kept back for priority (manual) checks once the budget runs low
+    private static final long SECONDARY_LIMIT_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    private static final long BURST_TOLERANCE_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Wait for permission to call a resource.
+     * @param maxWaitMillis Longest the caller is willing to block
+     * @return false if the resource is blocked or busy for longer than maxWaitMillis, nothing is consumed then
+     */
+    public boolean acquire(String resource, long maxWaitMillis) throws InterruptedException {
+        return acquire(resource, maxWaitMillis, false);
+    }
+
+    /**
+     * Same as {@link #acquire(String, long)}.
+     * @param priority Skip the pacing and spend the reserve if needed, for checks a user is waiting on
+     */
+    public boolean acquire(String resource, long maxWaitMillis, boolean priority) throws InterruptedException {
+        long waitMillis = bucket(resource).reserve(System.currentTimeMillis(), maxWaitMillis, priority);
+        if (waitMillis < 0) {
+            return false;
+        }
+        if (waitMillis > 0) {
+            Thread.sleep(waitMillis);
+        }
+        return true;
+    }
+
+    /**
+     * Update the resource's budget from a response's rate-limit headers and back off if it was rate limited.
+     */
+    public void update(String resource, HttpResponse<?> response) {
+        String actualResource = response.headers().firstValue("X-RateLimit-Resource").orElse(resource);
+        Bucket bucket = bucket(actualResource);
+        long now = System.currentTimeMillis();
+
+        long remaining = headerLong(response, "X-RateLimit-Remaining", -1);
+        long limit = headerLong(response, "X-RateLimit-Limit", -1);
+        long resetSeconds = headerLong(response, "X-RateLimit-Reset", -1);
+        if (remaining >= 0 && limit > 0 && resetSeconds > 0) {
+            bucket.updateBudget(remaining, limit, TimeUnit.SECONDS.toMillis(resetSeconds));
+        }
+
+        int status = response.statusCode();
+        if (status == 403 || status == 429) {
+            long retryAfter = headerLong(response, "Retry-After", -1);
+            long blockedUntil;
+            if (retryAfter >= 0) {
+                blockedUntil = now + TimeUnit.SECONDS.toMillis(retryAfter);
+            } else if (remaining == 0 && resetSeconds > 0) {
+                blockedUntil = TimeUnit.SECONDS.toMillis(resetSeconds);
+            } else if (status == 429) {
+                // Secondary rate limit without a hint, GitHub asks for at least a minute
+                blockedUntil = now + SECONDARY_LIMIT_BACKOFF_MILLIS;
+            } else {
+                return; // Plain permission error
+            }
+            bucket.block(blockedUntil);
+            System.err.println("GitHub rate limit hit for " + actualResource + ", pausing for "
+                    + TimeUnit.MILLISECONDS.toSeconds(Math.max(0, blockedUntil - now)) + "s");
+        }
+    }
+
+    /**
+     * @return Calls left in the resource's current window as last reported by GitHub, or -1 if unknown
+     */
+    public long remaining(String resource) {
+        Bucket bucket = buckets.get(resource);
+        return bucket == null ? -1 : bucket.remaining();
+    }
+
+    private Bucket bucket(String resource) {
+        return buckets.computeIfAbsent(resource, GitHubRateLimiter::defaultBucket);
+    }
+
+    // Budgets of an authenticated token, corrected by the first response
+    private static Bucket defaultBucket(String resource) {
+        return resource.equals("search")
+                ? new Bucket(30, TimeUnit.MINUTES.toMillis(1))
+                : new Bucket(5000, TimeUnit.HOURS.toMillis(1));
+    }
+
+    private static long headerLong(HttpResponse<?> response, String name, long fallback) {
+        return response.headers().firstValue(name).map(value -> {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                return fallback;
+            }
+        }).orElse(fallback);
+    }
+
+    // Helper class for the budget of one resource
+    private static class Bucket {
+        private final long windowMillis;
+        private long limit;
+        private long remaining;
+        private long resetAtMillis;
+        private long nextFreeMillis;
+        private long blockedUntilMillis;
+
+        Bucket(long limit, long windowMillis) {
+            this.windowMillis = windowMillis;
+            this.limit = limit;
+            this.remaining = limit;
+            this.resetAtMillis = System.currentTimeMillis() + windowMillis;
+        }
+
+        /**
+         * Reserve the next call slot.
+         * @return Millis the caller has to wait, or -1 if that exceeds maxWaitMillis
+         */
+        synchronized long reserve(long now, long maxWaitMillis, boolean priority) {
+            if (now >= resetAtMillis) {
+                // Window rolled over without a response telling us the new budget, assume it refilled
+                resetAtMillis = now + windowMillis;
+                remaining = limit;
+            }
+
+            if (priority && remaining > 0) {
+                // Goes out right away, the paced calls absorb it through the smaller budget
+                long waitMillis = Math.max(0, blockedUntilMillis - now);
+                if (waitMillis > maxWaitMillis) {
+                    return -1;
+                }
+                remaining--;
+                return waitMillis;
+            }
+
+            long usable = remaining - Math.min(MAX_RESERVE, limit / 10);
+
+            // nextFreeMillis is when the call would be due if calls were evenly spaced. Calls may run up to the
+            // burst tolerance ahead of it, but not once only the reserve is left
+            long tolerance = usable > 0 ? BURST_TOLERANCE_MILLIS : 0;
+            long start = Math.max(now, Math.max(nextFreeMillis - tolerance, blockedUntilMillis));
+            if (remaining <= 0) {
+                start = Math.max(start, resetAtMillis);
+            }
+            long waitMillis = start - now;
+            if (waitMillis > maxWaitMillis) {
+                return -1;
+            }
+
+            // Spread what is left of the budget evenly over the rest of the window, slowing right down
+            // once only the reserve is left
+            long untilReset = Math.max(0, resetAtMillis - start);
+            long interval = usable > 0 ? untilReset / usable : untilReset / Math.max(1, remaining);
+            nextFreeMillis = Math.max(nextFreeMillis, start) + interval;
+            if (remaining > 0) {
+                remaining--;
+            }
+            return waitMillis;
+        }
+
+        synchronized void updateBudget(long remaining, long limit, long resetAtMillis) {
+            this.limit = limit;
+            this.remaining = Math.min(remaining, limit);
+            this.resetAtMillis = resetAtMillis;
+        }
+
+        synchronized void block(long untilMillis) {
+            blockedUntilMillis = Math.max(blockedUntilMillis, untilMillis);
+        }
+
+        synchronized long remaining() {
+            return remaining;
+        }
+    }
+}
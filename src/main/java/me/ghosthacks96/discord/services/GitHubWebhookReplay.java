@@ -0,0 +1,154 @@
+package me.ghosthacks96.discord.services;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Local stub that replays recorded webhook deliveries through {@link GitHubWebhookServer#handle(String, String, byte[])},
+ * without Discord, a network or a GitHub secret.
+ *
+ * Each recorded delivery, stored as {@code <event>.json}, is signed with a throwaway secret and must be accepted,
+ * then replayed with a wrong and a missing signature, which must both be rejected. Decoded events are recorded
+ * under the keys the per-repository pollers use. The recorded REST pages ({@code rest-commits.json},
+ * {@code rest-issue-comments.json}) are then decoded against those keys, and exactly the items that did not
+ * arrive by webhook must be left for the poll to post.
+ *
+ * Usage: java -cp target/classes:&lt;gson&gt; me.ghosthacks96.discord.services.GitHubWebhookReplay [samples directory]
+ */
+public class GitHubWebhookReplay {
+
+    private static final String SECRET = "replay-secret";
+    private static final File DEFAULT_SAMPLES = new File("samples/github-webhooks");
+
+    private final List<String> failures = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        File samples = args.length > 0 ? new File(args[0]) : DEFAULT_SAMPLES;
+        File[] files = samples.listFiles((dir, name) -> name.endsWith(".json"));
+        if (files == null || files.length == 0) {
+            System.err.println("No recorded payloads in " + samples.getPath());
+            System.exit(2);
+        }
+
+        GitHubWebhookReplay replay = new GitHubWebhookReplay();
+        File stateFile = File.createTempFile("webhook-replay", ".log");
+        stateFile.delete(); // The store creates its own log
+        PollerStateStore state = new PollerStateStore(stateFile);
+        try {
+            replay.run(samples, files, state);
+        } finally {
+            state.delete();
+        }
+
+        if (replay.failures.isEmpty()) {
+            System.out.println("All webhook replays passed");
+        } else {
+            replay.failures.forEach(failure -> System.err.println("FAILED: " + failure));
+            System.exit(1);
+        }
+    }
+
+    private void run(File samples, File[] files, PollerStateStore state) throws Exception {
+        RecordingSink sink = new RecordingSink(state);
+        GitHubWebhookServer server = new GitHubWebhookServer(0, SECRET, sink);
+
+        for (File file : files) {
+            String name = file.getName();
+            if (name.startsWith("rest-")) continue;
+            String eventType = name.substring(0, name.length() - ".json".length());
+            byte[] body = Files.readAllBytes(file.toPath());
+
+            expect(eventType + " with a valid signature", 200, server.handle(eventType, sign(SECRET, body), body));
+            expect(eventType + " with a wrong signature", 401, server.handle(eventType, sign("not-the-secret", body), body));
+            expect(eventType + " without a signature", 401, server.handle(eventType, null, body));
+        }
+        System.out.println("Replayed deliveries: " + sink.commits.size() + " commits, "
+                + sink.issueComments.size() + " issue comments, " + sink.prComments.size() + " PR comments");
+
+        // A poll after the deliveries must skip what they posted and nothing else
+        File restCommits = new File(samples, "rest-commits.json");
+        if (restCommits.exists() && sink.repository != null) {
+            byte[] page = Files.readAllBytes(restCommits.toPath());
+            Set<String> expected = new LinkedHashSet<>();
+            for (GitHubNotifier.CommitInfo commit : GitHubJsonDecoder.readCommits(new ByteArrayInputStream(page), sha -> false)) {
+                if (!sink.commits.contains(commit.sha())) expected.add(commit.sha());
+            }
+            Set<String> unseen = new LinkedHashSet<>();
+            for (GitHubNotifier.CommitInfo commit : GitHubJsonDecoder.readCommits(new ByteArrayInputStream(page),
+                    sha -> state.contains(GitHubPollingService.commitKey(sink.repository, sha)))) {
+                unseen.add(commit.sha());
+            }
+            expect("commits left for the poll", expected, unseen);
+        }
+
+        File restComments = new File(samples, "rest-issue-comments.json");
+        if (restComments.exists()) {
+            byte[] page = Files.readAllBytes(restComments.toPath());
+            Set<Long> expected = new LinkedHashSet<>();
+            for (GitHubNotifier.CommentInfo comment : GitHubJsonDecoder.readComments(new ByteArrayInputStream(page), id -> false)) {
+                if (!sink.issueComments.contains(comment.id())) expected.add(comment.id());
+            }
+            Set<Long> unseen = new LinkedHashSet<>();
+            for (GitHubNotifier.CommentInfo comment : GitHubJsonDecoder.readComments(new ByteArrayInputStream(page),
+                    id -> state.contains(GitHubPollingService.issueCommentKey(id)))) {
+                unseen.add(comment.id());
+            }
+            expect("issue comments left for the poll", expected, unseen);
+        }
+    }
+
+    private void expect(String what, Object expected, Object actual) {
+        if (expected.equals(actual)) {
+            System.out.println("OK: " + what + " -> " + actual);
+        } else {
+            failures.add(what + ": expected " + expected + " but got " + actual);
+        }
+    }
+
+    private static String sign(String secret, byte[] body) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return "sha256=" + HexFormat.of().formatHex(mac.doFinal(body));
+    }
+
+    // Helper class recording deliveries the way GitHubPollingService's deliver methods do
+    private static class RecordingSink implements GitHubWebhookServer.EventSink {
+        final PollerStateStore state;
+        final Set<String> commits = new LinkedHashSet<>();
+        final Set<Long> issueComments = new LinkedHashSet<>();
+        final Set<Long> prComments = new LinkedHashSet<>();
+        String repository;
+
+        RecordingSink(PollerStateStore state) {
+            this.state = state;
+        }
+
+        @Override
+        public void onCommit(String repository, GitHubNotifier.CommitInfo commit) {
+            this.repository = repository;
+            commits.add(commit.sha());
+            state.add(GitHubPollingService.commitKey(repository, commit.sha()));
+        }
+
+        @Override
+        public void onIssueComment(String repository, GitHubNotifier.CommentInfo comment) {
+            issueComments.add(comment.id());
+            state.add(GitHubPollingService.issueCommentKey(comment.id()));
+        }
+
+        @Override
+        public void onPRComment(String repository, GitHubNotifier.CommentInfo comment) {
+            prComments.add(comment.id());
+            state.add(GitHubPollingService.prCommentKey(comment.id()));
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package me.ghosthacks96.discord.services;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded endpoint receiving GitHub webhook deliveries, so pushes and comments arrive within seconds instead of
+ * on the next poll.
+ *
+ * Every delivery must carry a valid X-Hub-Signature-256 HMAC of its body. Supported events are decoded into the
+ * same records the pollers produce and handed to an {@link EventSink}. {@link #handle(String, String, byte[])}
+ * does not depend on the HTTP server, so recorded payloads can be replayed against a stub sink.
+ */
+public class GitHubWebhookServer {
+
+    public static final String PATH = "/github/webhook";
+    private static final int MAX_BODY_BYTES = 5 * 1024 * 1024; // GitHub caps payloads at 25MB, ours are far smaller
+
+    private final int port;
+    private final byte[] secret;
+    private final EventSink sink;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Receives decoded webhook events
+     */
+    public interface EventSink {
+        void onCommit(String repository, GitHubNotifier.CommitInfo commit);
+
+        void onIssueComment(String repository, GitHubNotifier.CommentInfo comment);
+
+        void onPRComment(String repository, GitHubNotifier.CommentInfo comment);
+    }
+
+    /**
+     * @param secret Webhook secret configured on GitHub, must not be empty
+     */
+    public GitHubWebhookServer(int port, String secret, EventSink sink) {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("Webhook secret must be configured");
+        }
+        this.port = port;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.sink = sink;
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        executor = Executors.newFixedThreadPool(2);
+        server.setExecutor(executor);
+        server.createContext(PATH, this::handleExchange);
+        server.start();
+        System.out.println("GitHub webhook receiver listening on port " + port + PATH);
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdown();
+            System.out.println("GitHub webhook receiver stopped");
+        }
+    }
+
+    private void handleExchange(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                respond(exchange, 405, "Method not allowed");
+                return;
+            }
+            byte[] body = readBody(exchange.getRequestBody());
+            if (body == null) {
+                respond(exchange, 413, "Payload too large");
+                return;
+            }
+            int status = handle(exchange.getRequestHeaders().getFirst("X-GitHub-Event"),
+                    exchange.getRequestHeaders().getFirst("X-Hub-Signature-256"), body);
+            respond(exchange, status, status == 401 ? "Invalid signature" : "OK");
+        } catch (Exception e) {
+            System.err.println("Failed to handle GitHub webhook delivery: " + e.getMessage());
+            respond(exchange, 500, "Error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Verify and dispatch one delivery.
+     * @param eventType Value of the X-GitHub-Event header
+     * @param signature Value of the X-Hub-Signature-256 header
+     * @return HTTP status to answer with
+     */
+    public int handle(String eventType, String signature, byte[] body) {
+        if (!isValidSignature(signature, body)) {
+            return 401;
+        }
+        if (eventType == null) {
+            return 400;
+        }
+
+        JsonObject payload = JsonParser.parseString(new String(body, StandardCharsets.UTF_8)).getAsJsonObject();
+        switch (eventType) {
+            case "push" -> handlePush(payload);
+            case "issue_comment" -> {
+                if (isCreated(payload)) {
+                    String number = payload.getAsJsonObject("issue").get("number").getAsString();
+                    sink.onIssueComment(repository(payload), toCommentInfo(payload.getAsJsonObject("comment"), number));
+                }
+            }
+            case "pull_request_review_comment" -> {
+                if (isCreated(payload)) {
+                    String number = payload.getAsJsonObject("pull_request").get("number").getAsString();
+                    sink.onPRComment(repository(payload), toCommentInfo(payload.getAsJsonObject("comment"), number));
+                }
+            }
+            default -> {
+                // ping and events we don't post about
+            }
+        }
+        return 200;
+    }
+
+    boolean isValidSignature(String signature, byte[] body) {
+        if (signature == null || !signature.startsWith("sha256=")) {
+            return false;
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            byte[] expected = mac.doFinal(body);
+            byte[] provided = HexFormat.of().parseHex(signature.substring("sha256=".length()));
+            // Constant-time comparison so the signature can't be guessed byte by byte
+            return MessageDigest.isEqual(expected, provided);
+        } catch (IllegalArgumentException e) {
+            return false; // Not valid hex
+        } catch (Exception e) {
+            System.err.println("Failed to verify webhook signature: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void handlePush(JsonObject payload) {
+        if (payload.has("deleted") && payload.get("deleted").getAsBoolean()) {
+            return; // Branch deletion, nothing to show
+        }
+        String repository = repository(payload);
+        for (JsonElement element : payload.getAsJsonArray("commits")) {
+            JsonObject commit = element.getAsJsonObject();
+            // Non-distinct commits were already pushed elsewhere in the repository
+            if (commit.has("distinct") && !commit.get("distinct").getAsBoolean()) continue;
+            sink.onCommit(repository, new GitHubNotifier.CommitInfo(
+                    commit.get("id").getAsString(),
+                    commit.get("message").getAsString(),
+                    commit.getAsJsonObject("author").get("name").getAsString(),
+                    commit.get("timestamp").getAsString(),
+                    commit.get("url").getAsString()));
+        }
+    }
+
+    private static boolean isCreated(JsonObject payload) {
+        return payload.has("action") && "created".equals(payload.get("action").getAsString());
+    }
+
+    private static String repository(JsonObject payload) {
+        return payload.getAsJsonObject("repository").get("full_name").getAsString();
+    }
+
+    private static GitHubNotifier.CommentInfo toCommentInfo(JsonObject comment, String number) {
+        return new GitHubNotifier.CommentInfo(
+                comment.get("id").getAsLong(),
+                number,
+                comment.getAsJsonObject("user").get("login").getAsString(),
+                comment.get("body").getAsString(),
+                comment.get("created_at").getAsString(),
+                comment.get("html_url").getAsString());
+    }
+
+    private static byte[] readBody(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            if (output.size() + read > MAX_BODY_BYTES) {
+                return null;
+            }
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] response = message.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, response.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(response);
+        }
+    }
+}
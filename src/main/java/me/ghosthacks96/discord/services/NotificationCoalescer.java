@@ -0,0 +1,166 @@
+package me.ghosthacks96.discord.services;
+
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+
+import java.awt.Color;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces GitHub notifications per channel so a burst upstream doesn't turn into a burst of Discord calls.
+ *
+ * The first notification for a channel opens a short window. When it closes, everything collected is sent as
+ * one message of up to 10 embeds, or as a single digest embed listing every item when there are more. A window
+ * that collects {@link #MAX_DIGEST_ITEMS} items is flushed right away. A channel therefore receives at most one
+ * message per window plus one per {@link #MAX_DIGEST_ITEMS} items, and nothing waits longer than the window.
+ */
+public class NotificationCoalescer {
+
+    private static final long WINDOW_MILLIS = 2000;
+    private static final int MAX_DIGEST_ITEMS = 50;
+    private static final int MAX_DIGEST_LENGTH = MessageEmbed.DESCRIPTION_MAX_LENGTH - 100; // Room for the "more" line
+
+    // Singleton instance
+    private static volatile NotificationCoalescer instance;
+    private static final Object INSTANCE_LOCK = new Object();
+
+    private final ScheduledExecutorService scheduler;
+    // Channel ID -> notifications of its open window
+    private final Map<String, Batch> pending = new HashMap<>();
+
+    private NotificationCoalescer() {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static NotificationCoalescer getInstance() {
+        if (instance == null) {
+            synchronized (INSTANCE_LOCK) {
+                if (instance == null) {
+                    instance = new NotificationCoalescer();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Queue a notification for a channel.
+     * @param summary One line describing it in a digest, markdown allowed
+     */
+    public void enqueue(JDA jda, String channelId, MessageEmbed embed, String summary) {
+        Batch full = null;
+        synchronized (this) {
+            Batch batch = pending.get(channelId);
+            if (batch == null) {
+                batch = new Batch(jda);
+                Batch opened = batch;
+                try {
+                    scheduler.schedule(() -> flush(channelId, opened), WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+                    pending.put(channelId, batch);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down, send right away
+                    full = batch;
+                }
+            }
+            batch.add(embed, summary);
+            if (full == null && batch.size() >= MAX_DIGEST_ITEMS) {
+                pending.remove(channelId);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            send(channelId, full);
+        }
+    }
+
+    private void flush(String channelId, Batch batch) {
+        synchronized (this) {
+            if (!pending.remove(channelId, batch)) {
+                return; // Already flushed because it filled up
+            }
+        }
+        send(channelId, batch);
+    }
+
+    private void send(String channelId, Batch batch) {
+        TextChannel channel = batch.jda.getTextChannelById(channelId);
+        if (channel == null) return;
+
+        List<MessageEmbed> embeds = batch.size() <= Message.MAX_EMBED_COUNT ? batch.embeds : List.of(buildDigest(batch));
+        channel.sendMessageEmbeds(embeds).queue(
+                null,
+                error -> System.err.println("Failed to send GitHub notification to " + channelId + ": " + error.getMessage())
+        );
+    }
+
+    private static MessageEmbed buildDigest(Batch batch) {
+        StringBuilder description = new StringBuilder();
+        int listed = 0;
+        for (String line : batch.summaries) {
+            if (description.length() + line.length() + 1 > MAX_DIGEST_LENGTH) break;
+            description.append(line).append('\n');
+            listed++;
+        }
+        if (listed < batch.size()) {
+            description.append("…and ").append(batch.size() - listed).append(" more");
+        }
+
+        return new EmbedBuilder()
+                .setTitle("📬 " + batch.size() + " new GitHub updates")
+                .setColor(Color.GRAY)
+                .setTimestamp(OffsetDateTime.now())
+                .setDescription(description.toString())
+                .build();
+    }
+
+    /**
+     * Send everything still waiting and stop the timer.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        Map<String, Batch> remaining;
+        synchronized (this) {
+            remaining = new HashMap<>(pending);
+            pending.clear();
+        }
+        remaining.forEach(this::send);
+    }
+
+    // Helper class for the notifications of one channel's window
+    private static class Batch {
+        final JDA jda;
+        final List<MessageEmbed> embeds = new ArrayList<>();
+        final List<String> summaries = new ArrayList<>();
+
+        Batch(JDA jda) {
+            this.jda = jda;
+        }
+
+        void add(MessageEmbed embed, String summary) {
+            embeds.add(embed);
+            summaries.add(summary);
+        }
+
+        int size() {
+            return embeds.size();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package me.ghosthacks96.discord.services;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistent cache of which GitHub repository a package name resolves to.
+ *
+ * Resolving goes through the search API, which only allows 30 requests per minute, and the answer almost never
+ * changes. Found repositories are kept for a week and misses for a few hours, so a package check normally
+ * costs a single /releases/latest call. Stored in data/package_repositories.txt, one tab separated entry per line.
+ */
+public class PackageRepositoryCache {
+
+    private static final long FOUND_TTL_MILLIS = TimeUnit.DAYS.toMillis(7);
+    private static final long NOT_FOUND_TTL_MILLIS = TimeUnit.HOURS.toMillis(6);
+    private static final String NOT_FOUND = "-";
+
+    private final File file;
+    // Lower case package name -> last resolution
+    private final Map<String, Resolution> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param repository "owner/repo", or null if the search found nothing
+     */
+    public record Resolution(String repository, long resolvedAt) {
+        boolean isExpired(long now) {
+            return now - resolvedAt > (repository != null ? FOUND_TTL_MILLIS : NOT_FOUND_TTL_MILLIS);
+        }
+    }
+
+    public PackageRepositoryCache(File file) {
+        this.file = file;
+        load();
+    }
+
+    /**
+     * @return The cached resolution, or null if the package has to be searched again
+     */
+    public Resolution get(String packageName) {
+        Resolution resolution = entries.get(packageName.toLowerCase());
+        if (resolution == null || resolution.isExpired(System.currentTimeMillis())) {
+            return null;
+        }
+        return resolution;
+    }
+
+    /**
+     * Remember a search result.
+     * @param repository "owner/repo", or null if the search found nothing
+     */
+    public void put(String packageName, String repository) {
+        entries.put(packageName.toLowerCase(), new Resolution(repository, System.currentTimeMillis()));
+        save();
+    }
+
+    private void load() {
+        try {
+            if (!file.exists()) return;
+            long now = System.currentTimeMillis();
+            for (String line : Files.readAllLines(file.toPath())) {
+                String[] parts = line.split("\t");
+                if (parts.length != 3) continue;
+                Resolution resolution = new Resolution(NOT_FOUND.equals(parts[1]) ? null : parts[1], Long.parseLong(parts[2]));
+                if (!resolution.isExpired(now)) {
+                    entries.put(parts[0], resolution);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to load package repository cache: " + e.getMessage());
+        }
+    }
+
+    private synchronized void save() {
+        try {
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (!parent.exists()) {
+                parent.mkdirs();
+            }
+            List<String> lines = new ArrayList<>(entries.size());
+            entries.forEach((name, resolution) -> lines.add(name + "\t"
+                    + (resolution.repository() != null ? resolution.repository() : NOT_FOUND) + "\t" + resolution.resolvedAt()));
+            // Written next to the cache and moved over it, so a crash never leaves a truncated file
+            File temp = new File(parent, file.getName() + ".tmp");
+            Files.write(temp.toPath(), lines);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            System.err.println("Failed to save package repository cache: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package me.ghosthacks96.discord.services;
+
+import me.ghosthacks96.discord.commands.GitHubTrackCommand;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-disk state of package tracking: every tracked package with its pinned repository and the last release
+ * version seen for it. One tab separated line per package in data/packages.txt, rewritten atomically.
+ */
+public class PackageStateStore {
+
+    public static final File DEFAULT_FILE = new File("data/packages.txt");
+    private static final String NONE = "-";
+
+    private final File file;
+
+    /**
+     * @param lastVersion Last release tag seen, null if none was seen yet
+     */
+    public record Entry(GitHubTrackCommand.TrackedPackage trackedPackage, String lastVersion) {
+    }
+
+    public PackageStateStore(File file) {
+        this.file = file;
+    }
+
+    public boolean exists() {
+        return file.exists();
+    }
+
+    public synchronized List<Entry> load() {
+        List<Entry> entries = new ArrayList<>();
+        try {
+            if (!file.exists()) return entries;
+            for (String line : Files.readAllLines(file.toPath())) {
+                // name, guild ID, channel ID, repository, last version
+                String[] parts = line.split("\t");
+                if (parts.length != 5) continue;
+                entries.add(new Entry(
+                        new GitHubTrackCommand.TrackedPackage(parts[0], parts[1], parts[2], orNull(parts[3])),
+                        orNull(parts[4])));
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to load package state: " + e.getMessage());
+        }
+        return entries;
+    }
+
+    /**
+     * @param lastVersions Lower case package name -> last version seen
+     */
+    public synchronized void save(Collection<GitHubTrackCommand.TrackedPackage> packages, Map<String, String> lastVersions) {
+        try {
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (!parent.exists()) {
+                parent.mkdirs();
+            }
+            List<String> lines = new ArrayList<>(packages.size());
+            for (GitHubTrackCommand.TrackedPackage pkg : packages) {
+                lines.add(String.join("\t", pkg.name, pkg.guildId, pkg.channelId,
+                        orNone(pkg.repository), orNone(lastVersions.get(pkg.name.toLowerCase()))));
+            }
+            File temp = new File(parent, file.getName() + ".tmp");
+            Files.write(temp.toPath(), lines);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            System.err.println("Failed to save package state: " + e.getMessage());
+        }
+    }
+
+    private static String orNull(String value) {
+        return NONE.equals(value) ? null : value;
+    }
+
+    private static String orNone(String value) {
+        return value == null ? NONE : value;
+    }
+}
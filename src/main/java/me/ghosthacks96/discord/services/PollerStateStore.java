@@ -0,0 +1,357 @@
+package me.ghosthacks96.discord.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent state of a GitHub poller: the keys of events it already posted and its per-endpoint cursors.
+ *
+ * Event keys are stored as 64-bit hashes in a primitive open-addressing table, so an entry costs a few longs
+ * instead of a ~60 character String. Once the store holds its capacity the oldest key is evicted for every new one.
+ *
+ * Every change is appended to a write-ahead log as it happens, so a killed process resumes exactly where it
+ * stopped. {@link #sync()} forces the log to disk and is called once per poll, batching the fsyncs. When the
+ * log reaches twice the capacity it is replaced by a snapshot of the live state, which bounds replay at startup.
+ */
+public class PollerStateStore {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final long MAGIC = 0x4748535457414C31L; // "GHSTWAL1"
+    private static final byte EVENT_RECORD = 1;   // long hash
+    private static final byte CURSOR_RECORD = 2;  // UTF key, long value
+
+    private final File logFile;
+    private final int capacity;
+
+    private final long[] table; // 0 marks an empty slot
+    private final long[] order; // Ring buffer of hashes in insertion order, oldest at head
+    private int head;
+    private int size;
+    private final Map<String, Long> cursors = new LinkedHashMap<>();
+
+    private FileChannel log;
+    private long loggedRecords;
+    private boolean dirty; // Appended since the last fsync
+
+    public PollerStateStore(File logFile) {
+        this(logFile, DEFAULT_CAPACITY);
+    }
+
+    public PollerStateStore(File logFile, int capacity) {
+        this.logFile = logFile;
+        this.capacity = capacity;
+        this.table = new long[Integer.highestOneBit(Math.max(16, capacity * 2) - 1) << 1];
+        this.order = new long[capacity];
+        load();
+    }
+
+    /**
+     * Import the keys of a legacy plain-text file (one key per line) and delete it afterwards.
+     * Short-SHA entries ("owner/repo_abc1234") were only ever written next to the full key and are skipped.
+     */
+    public synchronized void migrateLegacy(File legacyFile) {
+        if (!legacyFile.exists()) return;
+        try {
+            List<String> lines = Files.readAllLines(legacyFile.toPath());
+            for (String line : lines) {
+                String key = line.trim();
+                if (key.isEmpty() || key.matches(".+/.+_[0-9a-f]{7}")) continue;
+                insert(hash(key));
+            }
+            snapshot();
+            Files.delete(legacyFile.toPath());
+            System.out.println("Migrated " + lines.size() + " processed events from " + legacyFile.getName());
+        } catch (IOException e) {
+            System.err.println("Failed to migrate processed events from " + legacyFile.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Record an event key.
+     * @return true if the key was not seen before and has been recorded now
+     */
+    public synchronized boolean add(String key) {
+        long hash = hash(key);
+        if (!insert(hash)) {
+            return false;
+        }
+        append(ByteBuffer.allocate(1 + Long.BYTES).put(EVENT_RECORD).putLong(hash).flip());
+        return true;
+    }
+
+    public synchronized boolean contains(String key) {
+        return indexOf(hash(key)) >= 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return The cursor's last value, or fallback if it was never set
+     */
+    public synchronized long getCursor(String key, long fallback) {
+        Long value = cursors.get(key);
+        return value != null ? value : fallback;
+    }
+
+    public synchronized void setCursor(String key, long value) {
+        Long previous = cursors.put(key, value);
+        if (previous != null && previous == value) return;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream record = new DataOutputStream(bytes);
+            record.writeByte(CURSOR_RECORD);
+            record.writeUTF(key);
+            record.writeLong(value);
+            append(ByteBuffer.wrap(bytes.toByteArray()));
+        } catch (IOException e) {
+            System.err.println("Failed to encode cursor " + key + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Force everything appended so far to disk.
+     */
+    public synchronized void sync() {
+        if (!dirty || log == null) return;
+        try {
+            log.force(false);
+            dirty = false;
+        } catch (IOException e) {
+            System.err.println("Failed to sync " + logFile.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Snapshot the state and release the file.
+     */
+    public synchronized void close() {
+        try {
+            snapshot();
+        } catch (IOException e) {
+            System.err.println("Failed to snapshot " + logFile.getName() + ": " + e.getMessage());
+        }
+        closeLog();
+    }
+
+    /**
+     * Close the store and remove its log, used when a repository is no longer tracked.
+     */
+    public synchronized void delete() {
+        closeLog();
+        logFile.delete();
+    }
+
+    /**
+     * 64-bit FNV-1a of the key's characters, finished with the SplitMix64 mixer. Never returns 0.
+     */
+    public static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        h ^= h >>> 31;
+        return h == 0 ? 1 : h;
+    }
+
+    // =================== TABLE ===================
+
+    private boolean insert(long hash) {
+        if (indexOf(hash) >= 0) {
+            return false;
+        }
+        if (size == capacity) {
+            // Full, the oldest key makes room
+            remove(order[head]);
+            order[head] = hash;
+            head = (head + 1) % capacity;
+        } else {
+            order[(head + size) % capacity] = hash;
+            size++;
+        }
+        int mask = table.length - 1;
+        int index = slot(hash, mask);
+        while (table[index] != 0) {
+            index = (index + 1) & mask;
+        }
+        table[index] = hash;
+        return true;
+    }
+
+    private int indexOf(long hash) {
+        int mask = table.length - 1;
+        int index = slot(hash, mask);
+        while (table[index] != 0) {
+            if (table[index] == hash) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void remove(long hash) {
+        int hole = indexOf(hash);
+        if (hole < 0) return;
+        // Backward-shift deletion keeps every probe chain intact without tombstones
+        int mask = table.length - 1;
+        int index = hole;
+        while (true) {
+            index = (index + 1) & mask;
+            long moved = table[index];
+            if (moved == 0) break;
+            int home = slot(moved, mask);
+            boolean reachable = hole <= index ? (home <= hole || home > index) : (home <= hole && home > index);
+            if (reachable) {
+                table[hole] = moved;
+                hole = index;
+            }
+        }
+        table[hole] = 0;
+    }
+
+    private static int slot(long hash, int mask) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    // =================== LOG ===================
+
+    /**
+     * Replay the log.
+     */
+    private void load() {
+        if (!logFile.exists()) return;
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(logFile.toPath());
+        } catch (IOException e) {
+            System.err.println("Failed to load poller state from " + logFile.getName() + ": " + e.getMessage());
+            return;
+        }
+
+        long validBytes = 0;
+        if (bytes.length >= Long.BYTES && ByteBuffer.wrap(bytes).getLong() == MAGIC) {
+            try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes))) {
+                input.readLong();
+                validBytes = Long.BYTES;
+                while (true) {
+                    byte type = input.readByte();
+                    if (type == EVENT_RECORD) {
+                        insert(input.readLong());
+                    } else if (type == CURSOR_RECORD) {
+                        cursors.put(input.readUTF(), input.readLong());
+                    } else {
+                        break; // Garbage after a torn write
+                    }
+                    loggedRecords++;
+                    validBytes = bytes.length - input.available();
+                }
+            } catch (EOFException e) {
+                // End of log
+            } catch (IOException e) {
+                System.err.println("Failed to replay " + logFile.getName() + ": " + e.getMessage());
+            }
+        } else {
+            System.err.println(logFile.getName() + " is not a poller state log, starting empty");
+        }
+
+        if (validBytes != bytes.length) {
+            // A crash tore the last record, rewrite the log so appends start on a clean record
+            try {
+                snapshot();
+            } catch (IOException e) {
+                System.err.println("Failed to repair " + logFile.getName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void append(ByteBuffer record) {
+        try {
+            if (loggedRecords >= capacity * 2L) {
+                snapshot(); // The snapshot already contains this change
+                return;
+            }
+            ensureLogOpen();
+            while (record.hasRemaining()) {
+                log.write(record);
+            }
+            loggedRecords++;
+            dirty = true;
+        } catch (IOException e) {
+            System.err.println("Failed to append to " + logFile.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rewrite the log with only the live state, oldest hashes first, and swap it in atomically.
+     */
+    private void snapshot() throws IOException {
+        closeLog();
+        File parent = logFile.getAbsoluteFile().getParentFile();
+        if (!parent.exists()) {
+            parent.mkdirs();
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Long.BYTES + size * (1 + Long.BYTES));
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeLong(MAGIC);
+        for (int i = 0; i < size; i++) {
+            output.writeByte(EVENT_RECORD);
+            output.writeLong(order[(head + i) % capacity]);
+        }
+        for (Map.Entry<String, Long> cursor : cursors.entrySet()) {
+            output.writeByte(CURSOR_RECORD);
+            output.writeUTF(cursor.getKey());
+            output.writeLong(cursor.getValue());
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+
+        File temp = new File(parent, logFile.getName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        loggedRecords = size + cursors.size();
+        dirty = false;
+    }
+
+    private void ensureLogOpen() throws IOException {
+        if (log == null) {
+            if (!logFile.exists()) {
+                snapshot(); // Writes the header
+            }
+            log = FileChannel.open(logFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+
+    private void closeLog() {
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException ignored) {
+            }
+            log = null;
+        }
+    }
+}